@@ -7,37 +7,67 @@ const api = axios.create({
 });
 
 // Groups
-export const createGroup = (name) => api.post('/groups', { name }).then(r => r.data);
+// baseCurrency (optional, e.g. 'INR') is what the group's events are converted to and settled in
+export const createGroup = (name, baseCurrency) => api.post('/groups', { name, baseCurrency }).then(r => r.data);
 export const getGroup = (groupId) => api.get(`/groups/${groupId}`).then(r => r.data);
+// Home page in one request: { name, baseCurrency, revision, eventCount, totalSpend, members, transfers },
+// members carrying personId, name, paid, owed and balance
+export const getSummary = (groupId) => api.get(`/groups/${groupId}/summary`).then(r => r.data);
 
 // People
 export const addPerson = (groupId, name) => api.post(`/groups/${groupId}/people`, { name }).then(r => r.data);
 export const updatePerson = (groupId, personId, name) => api.put(`/groups/${groupId}/people/${personId}`, { name }).then(r => r.data);
 export const getPeople = (groupId) => getGroup(groupId).then(g => g.people || []);
 
-// Events
-export const createEvent = (groupId, { title, amount, payerId }) =>
-  api.post(`/groups/${groupId}/events`, { title, amount, payerId }).then(r => r.data);
+// Events (currency is optional and defaults to the group's base currency)
+export const createEvent = (groupId, { title, amount, payerId, currency }) =>
+  api.post(`/groups/${groupId}/events`, { title, amount, payerId, currency }).then(r => r.data);
 
 // Add participants in batch (our backend supports POST /events/{id}/participants)
 export const addParticipants = (groupId, eventId, participantsArray) =>
   api.post(`/groups/${groupId}/events/${eventId}/participants`, { participants: participantsArray }).then(r => r.data);
 
+// Replace an event's participants with a split: split is 'equal' | 'shares' | 'exact' | 'percent',
+// participants are ids or { personId, share | amount | percent }; returns the stored owed amounts
+export const setSplit = (groupId, eventId, split, participantsArray) =>
+  api.put(`/groups/${groupId}/events/${eventId}/participants`, { split, participants: participantsArray }).then(r => r.data);
+
 // Convenience: create event then add participants (single frontend action)
 export async function createEventWithParticipants(groupId, eventPayload, participantsArray) {
   const ev = await createEvent(groupId, eventPayload);
   if (participantsArray && participantsArray.length) {
     await addParticipants(groupId, ev.id, participantsArray);
   }
-  // return refreshed event list
-  return api.get(`/groups/${groupId}/events`).then(r => r.data);
+  return ev;
 }
 
 // Settlement
 export const settleDebug = (groupId) => api.post(`/groups/${groupId}/settle-debug`).then(r => r.data);
 export const settle = (groupId) => api.post(`/groups/${groupId}/settle`).then(r => r.data);
 
-// Events list
-export const getEvents = (groupId) => api.get(`/groups/${groupId}/events`).then(r => r.data);
+// Events list: the backend returns keyset pages { items, nextCursor }; this walks all pages
+export async function getEvents(groupId, { includeParticipants = false, limit = 500 } = {}) {
+  const events = [];
+  let after;
+  do {
+    const params = { limit, includeParticipants, ...(after ? { after } : {}) };
+    const page = await api.get(`/groups/${groupId}/events`, { params }).then(r => r.data);
+    events.push(...page.items);
+    after = page.nextCursor;
+  } while (after);
+  return events;
+}
+
+// Live updates: server-sent events from GET /groups/{id}/stream.
+// handlers maps event names (settlement, person-added, event-created, participants-changed,
+// imported, resync) to callbacks taking the parsed payload; returns a function closing the stream.
+// EventSource reconnects by itself, and the server starts every stream with a settlement.
+export function subscribeGroup(groupId, handlers) {
+  const source = new EventSource(`${api.defaults.baseURL}/groups/${groupId}/stream`);
+  Object.entries(handlers).forEach(([name, handler]) => {
+    source.addEventListener(name, e => handler(JSON.parse(e.data)));
+  });
+  return () => source.close();
+}
 
 export default api;
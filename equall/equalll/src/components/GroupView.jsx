@@ -1,7 +1,7 @@
 // src/components/GroupView.jsx
 import React, { useEffect, useState } from 'react';
 import SettlementSummary from './SettlementSummary';
-import { getEvents, getPeople, addPerson, updatePerson, createEventWithParticipants } from '../api';
+import { getEvents, getPeople, getSummary, addPerson, updatePerson, createEventWithParticipants, subscribeGroup } from '../api';
 
 export default function GroupView({ group, refresh, darkMode }) {
   const [events, setEvents] = useState([]);
@@ -9,6 +9,7 @@ export default function GroupView({ group, refresh, darkMode }) {
   const [nameInput, setNameInput] = useState('');
   const [editingPersonId, setEditingPersonId] = useState(null);
   const [editingName, setEditingName] = useState('');
+  const [settlement, setSettlement] = useState(null);
 
   const bgColor = darkMode ? '#1e1e1e' : '#f5f5f5';
   const cardBg = darkMode ? '#2a2a2a' : '#fff';
@@ -17,10 +18,28 @@ export default function GroupView({ group, refresh, darkMode }) {
   const mutedColor = darkMode ? '#999' : '#666';
 
   useEffect(() => {
-    getPeople(group.id).then(setPeople).catch(() => setPeople(group.people || []));
+    getSummary(group.id)
+      .then(s => setPeople(s.members.map(m => ({ id: m.personId, name: m.name }))))
+      .catch(() => setPeople(group.people || []));
     getEvents(group.id).then(setEvents);
   }, [group.id]);
 
+  // writes (ours and other viewers') arrive over the group stream instead of being re-fetched
+  useEffect(() => subscribeGroup(group.id, {
+    settlement: setSettlement,
+    'person-added': p => setPeople(prev => (
+      prev.some(x => x.id === p.personId) ? prev : [...prev, { id: p.personId, name: p.name }]
+    )),
+    'event-created': e => setEvents(prev => (
+      prev.some(x => x.id === e.eventId) ? prev
+        : [...prev, { id: e.eventId, title: e.title, amount: e.amount, payer: { id: e.payerId, name: e.payerName } }]
+    )),
+    resync: () => {
+      getPeople(group.id).then(setPeople);
+      getEvents(group.id).then(setEvents);
+    },
+  }), [group.id]);
+
   // Inline transactions state
   const [transactions, setTransactions] = useState(() => (
     (group.people || []).map(p => ({
@@ -45,10 +64,6 @@ export default function GroupView({ group, refresh, darkMode }) {
     if (!nameInput.trim()) return;
     await addPerson(group.id, nameInput.trim());
     setNameInput('');
-    const gp = await getPeople(group.id);
-    const evs = await getEvents(group.id);
-    setPeople(gp);
-    setEvents(evs);
     if (refresh) refresh();
   }
 
@@ -118,8 +133,6 @@ export default function GroupView({ group, refresh, darkMode }) {
         const parts = (t.participants || []).map(pid => ({ personId: pid, include: true }));
         await createEventWithParticipants(group.id, payload, parts);
       }
-      const evs = await getEvents(group.id);
-      setEvents(evs);
       if (refresh) refresh();
       setTransactions(prev => prev.map(t => ({ ...t, title: '', amount: '', participants: people.map(p=>p.id) })));
     } catch (err) {
@@ -436,7 +449,7 @@ export default function GroupView({ group, refresh, darkMode }) {
           padding: 20,
           flex: 1,
         }}>
-          <SettlementSummary groupId={group.id} people={people} darkMode={darkMode} />
+          <SettlementSummary groupId={group.id} people={people} live={settlement} darkMode={darkMode} />
         </div>
       </div>
     </div>
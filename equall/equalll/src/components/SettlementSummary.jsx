@@ -2,7 +2,7 @@
 import React, { useEffect, useState } from 'react';
 import { settleDebug, settle } from '../api';
 
-export default function SettlementSummary({ groupId, people, darkMode }) {
+export default function SettlementSummary({ groupId, people, live, darkMode }) {
   const [debug, setDebug] = useState(null);
   const [txns, setTxns] = useState([]);
 
@@ -10,10 +10,15 @@ export default function SettlementSummary({ groupId, people, darkMode }) {
   const borderColor = darkMode ? '#444' : '#eee';
   const mutedColor = darkMode ? '#999' : '#555';
 
+  // pushed by the group stream after every change; without a stream fall back to fetching once
   useEffect(() => {
-    if (!groupId) return;
-    refresh();
-  }, [groupId]);
+    if (live) {
+      setDebug(live);
+      setTxns(live.transactions || []);
+    } else if (groupId && live === undefined) {
+      refresh();
+    }
+  }, [groupId, live]);
 
   async function refresh() {
     try {
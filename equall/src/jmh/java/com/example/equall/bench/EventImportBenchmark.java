@@ -0,0 +1,80 @@
+package com.example.equall.bench;
+
+import com.example.equall.EquallApplication;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.Person;
+import com.example.equall.service.EventImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk NDJSON import of {@code events} events with 4 participants each into a fresh group.
+ * Target: at least 1,000 events/s against in-memory H2, i.e. no more than
+ * {@code events} ms per import (5,000 events: 25,000 rows in under 5 s).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class EventImportBenchmark {
+
+    @Param({"5000"})
+    public int events;
+
+    private ConfigurableApplicationContext context;
+    private GroupController groups;
+    private EventImportService importService;
+    private Long groupId;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command-line arguments, so they win over application.properties
+        context = SpringApplication.run(EquallApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:importbench;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN");
+        groups = context.getBean(GroupController.class);
+        importService = context.getBean(EventImportService.class);
+    }
+
+    // every import goes into a new group of 4 people, so groups do not grow across invocations
+    @Setup(Level.Invocation)
+    public void newGroup() {
+        groupId = groups.createGroup(Map.of("name", "bench")).getBody().getId();
+        List<Long> people = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            people.add(((Person) groups.addPerson(groupId, Map.of("name", "p" + i)).getBody()).getId());
+        }
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < events; i++) {
+            ndjson.append("{\"title\":\"e").append(i)
+                    .append("\",\"amount\":").append(10 + i % 97).append(".25")
+                    .append(",\"payerId\":").append(people.get(i % 4))
+                    .append(",\"participants\":").append(people).append("}\n");
+        }
+        body = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public EventImportService.ImportResult importEvents() throws IOException {
+        return importService.importEvents(groupId, new ByteArrayInputStream(body), true);
+    }
+}
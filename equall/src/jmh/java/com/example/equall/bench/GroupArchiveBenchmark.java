@@ -0,0 +1,174 @@
+package com.example.equall.bench;
+
+import com.example.equall.EquallApplication;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.service.EventImportService;
+import com.example.equall.service.EventQueryService;
+import com.example.equall.service.GroupArchiveService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving one group: binary archive (GroupArchiveService) vs. JSON. Export compares the
+ * archive with a JSON dump of the event listing incl. participants; import compares
+ * archive import with the NDJSON bulk import of the same events. Sizes are printed once
+ * per trial. Imports are single shots, each one adds the whole group again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class GroupArchiveBenchmark {
+
+    @Param({"20"})
+    public int people;
+
+    @Param({"10000"})
+    public int events;
+
+    private ConfigurableApplicationContext context;
+    private GroupArchiveService archive;
+    private EventQueryService eventQuery;
+    private EventImportService importService;
+    private Long groupId;
+    private Long jsonTargetId;
+
+    private byte[] archiveBytes;
+    private byte[] ndjsonBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // command-line arguments, so they win over application.properties
+        context = SpringApplication.run(EquallApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:archivebench;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN");
+        archive = context.getBean(GroupArchiveService.class);
+        eventQuery = context.getBean(EventQueryService.class);
+        importService = context.getBean(EventImportService.class);
+
+        GroupController groups = context.getBean(GroupController.class);
+        groupId = createGroup(groups, "source");
+        List<Long> sourcePeople = peopleOf(groups, groupId);
+        importService.importEvents(groupId, new ByteArrayInputStream(ndjson(sourcePeople)), true);
+
+        // the same events, addressed to a second group with as many people, for the JSON import
+        jsonTargetId = createGroup(groups, "json-target");
+        ndjsonBytes = ndjson(peopleOf(groups, jsonTargetId));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.export(groupId, Channels.newChannel(out));
+        archiveBytes = out.toByteArray();
+        CountingChannel json = new CountingChannel();
+        eventQuery.writePage(groupId, 0, events + 1, true, Channels.newOutputStream(json));
+        System.out.printf("%n%d events, %d people: archive %,d bytes, JSON listing %,d bytes, NDJSON import %,d bytes%n",
+                events, people, archiveBytes.length, json.bytes, ndjsonBytes.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long exportArchive() throws IOException {
+        CountingChannel out = new CountingChannel();
+        archive.export(groupId, out);
+        return out.bytes;
+    }
+
+    @Benchmark
+    public long exportJson() throws IOException {
+        CountingChannel out = new CountingChannel();
+        eventQuery.writePage(groupId, 0, events + 1, true, Channels.newOutputStream(out));
+        return out.bytes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public GroupArchiveService.ArchiveResult importArchive() throws IOException {
+        return archive.importArchive(Channels.newChannel(new ByteArrayInputStream(archiveBytes)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public EventImportService.ImportResult importJson() throws IOException {
+        return importService.importEvents(jsonTargetId, new ByteArrayInputStream(ndjsonBytes), true);
+    }
+
+    private Long createGroup(GroupController groups, String name) {
+        GroupEntity group = groups.createGroup(Map.of("name", name)).getBody();
+        for (int i = 0; i < people; i++) groups.addPerson(group.getId(), Map.of("name", "p" + i));
+        return group.getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> peopleOf(GroupController groups, Long groupId) {
+        List<Long> ids = new ArrayList<>();
+        Map<String, Object> group = (Map<String, Object>) groups.getGroupWithPeople(groupId).getBody();
+        for (Person p : (List<Person>) group.get("people")) ids.add(p.getId());
+        return ids;
+    }
+
+    // one payer and 4 participants per event, amounts with cents
+    private byte[] ndjson(List<Long> ids) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < events; i++) {
+            sb.append("{\"title\":\"event ").append(i)
+                    .append("\",\"amount\":").append(5 + i % 400).append('.').append(10 + i % 90)
+                    .append(",\"payerId\":").append(ids.get(i % ids.size()))
+                    .append(",\"participants\":[");
+            for (int k = 0; k < 4; k++) {
+                if (k > 0) sb.append(',');
+                sb.append(ids.get((i + k * 3) % ids.size()));
+            }
+            sb.append("]}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Discards everything, counting the bytes. */
+    private static final class CountingChannel implements WritableByteChannel {
+        long bytes;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
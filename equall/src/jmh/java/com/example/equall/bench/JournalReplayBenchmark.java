@@ -0,0 +1,93 @@
+package com.example.equall.bench;
+
+import com.example.equall.EquallApplication;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.service.BalanceJournalService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balances "as of now" of one group from its journal: full replay of every posting vs.
+ * latest snapshot plus the tail after it. The journal is generated directly in H2 with
+ * one posting per microsecond; the snapshot covers all but the last {@code tailPercent}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class JournalReplayBenchmark {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"100"})
+    public int people;
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    @Param({"1", "10"})
+    public int tailPercent;
+
+    private ConfigurableApplicationContext context;
+    private BalanceJournalService journal;
+    private Long groupId;
+    private Instant end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command-line arguments, so they win over application.properties
+        context = SpringApplication.run(EquallApplication.class,
+                "--server.port=0",
+                // H2 would otherwise return the cached result of the previous identical query
+                "--spring.datasource.url=jdbc:h2:mem:journalbench;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN");
+        journal = context.getBean(BalanceJournalService.class);
+
+        GroupController groups = context.getBean(GroupController.class);
+        GroupEntity group = groups.createGroup(Map.of("name", "bench")).getBody();
+        groupId = group.getId();
+        long firstPerson = Long.MAX_VALUE;
+        for (int i = 0; i < people; i++) {
+            Person p = (Person) groups.addPerson(groupId, Map.of("name", "p" + i)).getBody();
+            firstPerson = Math.min(firstPerson, p.getId());
+        }
+
+        context.getBean(JdbcTemplate.class).update(
+                "insert into ledger_journal (id, group_id, person_id, type, event_id, paid, owed, recorded_at) " +
+                        "select 100000000 + x, ?, ? + mod(x, ?), 'EXPENSE_CREATED', x, mod(x, 97), mod(x, 89), " +
+                        "dateadd(microsecond, x + 1, timestamp with time zone '2024-01-01 00:00:00+00') " +
+                        "from system_range(0, ?)",
+                groupId, firstPerson, people, entries - 1);
+
+        long snapshotMicros = (long) entries * (100 - tailPercent) / 100;
+        journal.snapshot(groupId, START.plus(snapshotMicros, ChronoUnit.MICROS));
+        end = START.plus(entries + 1, ChronoUnit.MICROS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BalanceJournalService.BalancesAsOf fullReplay() {
+        return journal.balancesAsOf(groupId, end, false);
+    }
+
+    @Benchmark
+    public BalanceJournalService.BalancesAsOf snapshotPlusTail() {
+        return journal.balancesAsOf(groupId, end);
+    }
+}
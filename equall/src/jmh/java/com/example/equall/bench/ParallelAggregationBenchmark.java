@@ -0,0 +1,106 @@
+package com.example.equall.bench;
+
+import com.example.equall.service.BalanceAccumulator;
+import com.example.equall.service.CentsSettlementEngine;
+import com.example.equall.service.ParallelAggregation;
+import com.example.equall.service.SettlementEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation of one huge group: sequential fold vs. {@link ParallelAggregation} with
+ * 4 id ranges per worker, as the ledger recompute does. In-memory only, so it shows the
+ * CPU side of the split; run on a machine with at least as many cores as workers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ParallelAggregationBenchmark {
+
+    @Param({"1000"})
+    public int people;
+
+    @Param({"1000000"})
+    public int events;
+
+    @Param({"2", "4", "8", "16"})
+    public int workers;
+
+    private final SettlementEngine engine = new CentsSettlementEngine();
+    private ExecutorService executor;
+
+    // synthetic group: one payer and 1..8 participants with weights 1..3 per event
+    private long[] amounts;
+    private long[] payers;
+    private long[][] participants;
+    private long[][] weights;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(workers);
+        Random rnd = new Random(1234);
+
+        amounts = new long[events];
+        payers = new long[events];
+        participants = new long[events][];
+        weights = new long[events][];
+        for (int e = 0; e < events; e++) {
+            amounts[e] = 100 + rnd.nextInt(100_000);
+            payers[e] = 1 + rnd.nextInt(people);
+            int k = 1 + rnd.nextInt(Math.min(8, people));
+            participants[e] = new long[k];
+            weights[e] = new long[k];
+            for (int i = 0; i < k; i++) {
+                participants[e][i] = 1 + rnd.nextInt(people);
+                weights[e][i] = 1 + rnd.nextInt(3);
+            }
+        }
+
+        if (!same(sequential(), parallel())) {
+            throw new IllegalStateException("parallel aggregation differs from sequential");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public BalanceAccumulator sequential() {
+        BalanceAccumulator acc = new BalanceAccumulator(engine, people);
+        fold(0, events, acc);
+        return acc;
+    }
+
+    @Benchmark
+    public BalanceAccumulator parallel() {
+        BalanceAccumulator acc = new BalanceAccumulator(engine, people);
+        int ranges = workers * 4;
+        ParallelAggregation.aggregate(acc, engine, people, ranges, executor, (range, into) ->
+                fold((int) ((long) events * range / ranges), (int) ((long) events * (range + 1) / ranges), into));
+        return acc;
+    }
+
+    private void fold(int from, int to, BalanceAccumulator acc) {
+        for (int e = from; e < to; e++) {
+            acc.addPaid(payers[e], amounts[e]);
+            acc.addEvent(amounts[e], participants[e], weights[e]);
+        }
+    }
+
+    private static boolean same(BalanceAccumulator a, BalanceAccumulator b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.idAt(i) != b.idAt(i) || a.paidAt(i) != b.paidAt(i) || a.owedAt(i) != b.owedAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.equall.bench;
+
+import com.example.equall.EquallApplication;
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Default configuration vs. the prod profile (Hikari sizing, ordered batching, second-level
+ * cache for groups and people) under the same mixed HTTP workload. Both run against a fresh
+ * file-backed H2 database as the stand-in for MySQL, so only the configuration differs.
+ * SQL echo is off in both runs to keep the fork output readable.
+ * <p>
+ * Run: mvn -Pjmh -DskipTests verify -Djmh.args="ProfileComparisonBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class ProfileComparisonBenchmark {
+
+    @Param({"default", "prod"})
+    public String profile;
+
+    @Param({"20"})
+    public int people;
+
+    @Param({"1000"})
+    public int events;
+
+    private ConfigurableApplicationContext context;
+    private Path dbDir;
+    private HttpClient client;
+    private String base;
+    private Long groupId;
+    private List<Long> personIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dbDir = Files.createTempDirectory("equall-" + profile);
+        // command-line arguments, so they win over application(-prod).properties
+        context = SpringApplication.run(EquallApplication.class,
+                "--spring.profiles.active=" + ("prod".equals(profile) ? "prod" : ""),
+                "--spring.datasource.url=jdbc:h2:file:" + dbDir.resolve("db"),
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN");
+
+        seed(context.getBean(GroupController.class), context.getBean(EventController.class));
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        base = "http://localhost:" + port + "/api/groups/" + groupId;
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(dbDir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    /** POST an event and its participants (two requests), as the UI does. */
+    @Benchmark
+    public String createExpense() throws Exception {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Long payer = personIds.get(rnd.nextInt(people));
+        String created = send(post(base + "/events",
+                "{\"title\":\"bench\",\"amount\":" + (1 + rnd.nextInt(500)) + ",\"payerId\":" + payer + "}"));
+        String id = created.substring(created.indexOf("\"id\":") + 5, created.indexOf(','));
+        return send(post(base + "/events/" + id + "/participants",
+                "{\"participants\":[" + payer + "," + personIds.get(rnd.nextInt(people)) + "]}"));
+    }
+
+    /** GET the group with its people. */
+    @Benchmark
+    public String readGroup() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(base)).GET().build());
+    }
+
+    @Benchmark
+    public String settle() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(base + "/settle")).POST(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private String send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) throw new IllegalStateException(request.uri() + ": " + response.body());
+        return response.body();
+    }
+
+    private void seed(GroupController groups, EventController eventsApi) {
+        Random rnd = new Random(7);
+        GroupEntity group = groups.createGroup(Map.of("name", "bench")).getBody();
+        groupId = group.getId();
+        personIds = new ArrayList<>();
+        for (int i = 0; i < people; i++) {
+            Person p = (Person) groups.addPerson(groupId, Map.of("name", "p" + i)).getBody();
+            personIds.add(p.getId());
+        }
+        for (int e = 0; e < events; e++) {
+            Long payer = personIds.get(rnd.nextInt(people));
+            Event ev = (Event) eventsApi.createEvent(groupId,
+                    Map.of("title", "e" + e, "amount", String.valueOf(1 + rnd.nextInt(1000)), "payerId", payer)).getBody();
+            eventsApi.addParticipants(groupId, ev.getId(),
+                    Map.of("participants", List.of(payer, personIds.get(rnd.nextInt(people)))));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.equall.bench;
+
+import com.example.equall.EquallApplication;
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end POST /api/groups/{id}/settle over HTTP against the in-memory H2 database.
+ * The application is started once per fork on a random port and seeded through the
+ * controllers, so the balance ledger is maintained exactly as in production.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class SettleEndpointBenchmark {
+
+    @Param({"10", "100"})
+    public int people;
+
+    @Param({"100", "10000"})
+    public int events;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest settle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command-line arguments, so they win over application.properties
+        context = SpringApplication.run(EquallApplication.class,
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN");
+
+        Long groupId = seed(context.getBean(GroupController.class), context.getBean(EventController.class));
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        settle = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/groups/" + groupId + "/settle"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String settle() throws Exception {
+        HttpResponse<String> response = client.send(settle, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) throw new IllegalStateException("settle failed: " + response.body());
+        return response.body();
+    }
+
+    private Long seed(GroupController groups, EventController eventsApi) {
+        Random rnd = new Random(99);
+        GroupEntity group = groups.createGroup(Map.of("name", "bench")).getBody();
+        List<Long> personIds = new ArrayList<>();
+        for (int i = 0; i < people; i++) {
+            Person p = (Person) groups.addPerson(group.getId(), Map.of("name", "p" + i)).getBody();
+            personIds.add(p.getId());
+        }
+        for (int e = 0; e < events; e++) {
+            Long payer = personIds.get(rnd.nextInt(people));
+            Event ev = (Event) eventsApi.createEvent(group.getId(),
+                    Map.of("title", "e" + e, "amount", String.valueOf(1 + rnd.nextInt(1000)), "payerId", payer)).getBody();
+            int k = 1 + rnd.nextInt(Math.min(8, people));
+            List<Long> parts = new ArrayList<>();
+            for (int i = 0; i < k; i++) parts.add(personIds.get(rnd.nextInt(people)));
+            eventsApi.addParticipants(group.getId(), ev.getId(), Map.of("participants", parts));
+        }
+        return group.getId();
+    }
+}
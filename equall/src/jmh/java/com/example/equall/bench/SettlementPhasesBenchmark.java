@@ -0,0 +1,92 @@
+package com.example.equall.bench;
+
+import com.example.equall.service.BalanceAccumulator;
+import com.example.equall.service.CentsSettlementEngine;
+import com.example.equall.service.DecimalSettlementEngine;
+import com.example.equall.service.SettlementEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two in-memory phases of settlement, without any database access:
+ * aggregation (paid sums + splitting every event into owed shares) and
+ * debt matching over the resulting balances.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class SettlementPhasesBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int people;
+
+    @Param({"100", "10000", "1000000"})
+    public int events;
+
+    @Param({"cents", "decimal"})
+    public String engine;
+
+    private SettlementEngine settlementEngine;
+
+    // synthetic group: one payer and 1..8 equally weighted participants per event
+    private long[] amounts;
+    private long[] payers;
+    private long[][] participants;
+    private long[][] weightsByCount;
+
+    // balances produced by the aggregation phase, input of the matching phase
+    private long[] ids;
+    private long[] balances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        settlementEngine = "cents".equals(engine) ? new CentsSettlementEngine() : new DecimalSettlementEngine();
+        Random rnd = new Random(1234);
+
+        weightsByCount = new long[9][];
+        for (int k = 0; k <= 8; k++) {
+            weightsByCount[k] = new long[k];
+            java.util.Arrays.fill(weightsByCount[k], 1L);
+        }
+
+        amounts = new long[events];
+        payers = new long[events];
+        participants = new long[events][];
+        for (int e = 0; e < events; e++) {
+            amounts[e] = 100 + rnd.nextInt(100_000);
+            payers[e] = 1 + rnd.nextInt(people);
+            int k = 1 + rnd.nextInt(Math.min(8, people));
+            participants[e] = new long[k];
+            for (int i = 0; i < k; i++) participants[e][i] = 1 + rnd.nextInt(people);
+        }
+
+        BalanceAccumulator acc = aggregate();
+        ids = new long[acc.size()];
+        balances = new long[acc.size()];
+        for (int i = 0; i < acc.size(); i++) {
+            ids[i] = acc.idAt(i);
+            balances[i] = acc.paidAt(i) - acc.owedAt(i);
+        }
+    }
+
+    @Benchmark
+    public BalanceAccumulator aggregate() {
+        BalanceAccumulator acc = new BalanceAccumulator(settlementEngine, people);
+        for (int e = 0; e < events; e++) {
+            acc.addPaid(payers[e], amounts[e]);
+            long[] parts = participants[e];
+            acc.addEvent(amounts[e], parts, weightsByCount[parts.length]);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public SettlementEngine.Transfers match() {
+        return settlementEngine.match(ids, balances);
+    }
+}
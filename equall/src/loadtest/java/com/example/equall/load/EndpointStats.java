@@ -0,0 +1,66 @@
+package com.example.equall.load;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies of one endpoint as recorded by one worker (primitive array, no locking);
+ * workers' stats are merged at the end of a stage.
+ */
+final class EndpointStats {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private int errors;
+
+    void record(long latencyNanos, boolean ok) {
+        if (!ok) {
+            errors++;
+            return;
+        }
+        if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+        nanos[count++] = latencyNanos;
+    }
+
+    void merge(EndpointStats other) {
+        if (count + other.count > nanos.length) nanos = Arrays.copyOf(nanos, count + other.count);
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /** Summary for the report; latencies in milliseconds, throughput over the measured window. */
+    Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long n : sorted) sum += n;
+
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("count", count);
+        s.put("errors", errors);
+        s.put("throughput", round(count / seconds));
+        s.put("meanMs", count == 0 ? 0 : round(sum / 1e6 / count));
+        s.put("p50Ms", percentile(sorted, 0.50));
+        s.put("p90Ms", percentile(sorted, 0.90));
+        s.put("p99Ms", percentile(sorted, 0.99));
+        s.put("maxMs", count == 0 ? 0 : round(sorted[count - 1] / 1e6));
+        return s;
+    }
+
+    // nearest-rank percentile
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return round(sorted[Math.max(rank, 1) - 1] / 1e6);
+    }
+
+    static double round(double v) {
+        return Math.round(v * 1000) / 1000.0;
+    }
+}
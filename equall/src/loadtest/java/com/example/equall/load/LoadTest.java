@@ -0,0 +1,280 @@
+package com.example.equall.load;
+
+import com.example.equall.EquallApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Closed-loop load generator replaying the UI's REST workflow. Each worker runs sessions
+ * back to back: create a group, add its people, then create events (POST event + POST
+ * participants), calling settle-debug after about every fourth event and settle at the end.
+ * <p>
+ * Every (people per group, concurrency) combination is one stage: a warmup whose results
+ * are dropped, then a measured window. Per endpoint the report has the request count,
+ * errors, throughput and p50/p90/p99/max latency; the whole run is written as JSON so runs
+ * can be compared (--baseline prints the change against an earlier file). Being closed-loop,
+ * a slow response delays the worker's next request, so past saturation the tool shows
+ * throughput flattening and latency rising rather than an unbounded queue.
+ * <p>
+ * Run: mvn -Ploadtest -DskipTests verify -Dloadtest.args="--people=5,25,100 --concurrency=1,4,16"
+ * <pre>
+ * --people=5,25,100      people per group, one stage per value (x each concurrency)
+ * --concurrency=1,4,16   concurrent workers
+ * --events=20            events per session
+ * --warmup=5             seconds per stage, not recorded
+ * --duration=20          measured seconds per stage
+ * --url=http://host:port run against an already started application instead of starting one
+ * --profile=prod         Spring profile of the in-process application
+ * --out=file.json        result file (default target/loadtest/loadtest-&lt;timestamp&gt;.json)
+ * --baseline=file.json   earlier result to compare with
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final String[] ENDPOINTS = {
+            "POST /groups", "POST /groups/{id}/people", "POST /groups/{id}/events",
+            "POST /groups/{id}/events/{id}/participants", "POST /groups/{id}/settle-debug",
+            "POST /groups/{id}/settle"
+    };
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<String, String> options;
+    private final int events;
+    private String api;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.events = Integer.parseInt(options.getOrDefault("events", "20"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value: " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext context = null;
+        String url = options.get("url");
+        if (url == null) {
+            // command-line arguments, so they win over application.properties
+            context = SpringApplication.run(EquallApplication.class,
+                    "--server.port=0",
+                    "--spring.profiles.active=" + options.getOrDefault("profile", ""),
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.root=WARN");
+            url = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        }
+        api = url + "/api";
+
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "20"));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startedAt", Instant.now().toString());
+        result.put("target", options.containsKey("url") ? url : "in-process");
+        result.put("profile", options.getOrDefault("profile", "default"));
+        result.put("eventsPerSession", events);
+        result.put("warmupSeconds", warmup);
+        result.put("durationSeconds", duration);
+        result.put("javaVersion", System.getProperty("java.version"));
+        result.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        List<Map<String, Object>> stages = new ArrayList<>();
+        result.put("stages", stages);
+
+        try {
+            for (int people : ints(options.getOrDefault("people", "5,25,100"))) {
+                for (int concurrency : ints(options.getOrDefault("concurrency", "1,4,16"))) {
+                    stage(people, concurrency, warmup, false);
+                    Map<String, Object> stage = stage(people, concurrency, duration, true);
+                    stages.add(stage);
+                    print(stage);
+                }
+            }
+        } finally {
+            if (context != null) context.close();
+        }
+
+        Path out = Path.of(options.getOrDefault("out", "target/loadtest/loadtest-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json"));
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        mapper.writeValue(out.toFile(), result);
+        System.out.println("Results written to " + out.toAbsolutePath());
+
+        if (options.containsKey("baseline")) compare(mapper.readTree(Path.of(options.get("baseline")).toFile()), stages);
+    }
+
+    // -------------------------------
+    // STAGES
+    // -------------------------------
+
+    private Map<String, Object> stage(int people, int concurrency, int seconds, boolean measured) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Map<String, EndpointStats>>> futures = new ArrayList<>();
+        int[] sessions = new int[1];
+        for (int w = 0; w < concurrency; w++) {
+            futures.add(workers.submit(() -> {
+                Map<String, EndpointStats> stats = new HashMap<>();
+                for (String e : ENDPOINTS) stats.put(e, new EndpointStats());
+                while (System.nanoTime() < deadline) {
+                    session(stats, people, deadline);
+                    synchronized (sessions) {
+                        sessions[0]++;
+                    }
+                }
+                return stats;
+            }));
+        }
+
+        Map<String, EndpointStats> merged = new LinkedHashMap<>();
+        for (String e : ENDPOINTS) merged.put(e, new EndpointStats());
+        for (Future<Map<String, EndpointStats>> f : futures) {
+            for (Map.Entry<String, EndpointStats> e : f.get().entrySet()) merged.get(e.getKey()).merge(e.getValue());
+        }
+        workers.shutdown();
+
+        Map<String, Object> stage = new LinkedHashMap<>();
+        stage.put("people", people);
+        stage.put("concurrency", concurrency);
+        if (!measured) return stage;
+
+        int total = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, EndpointStats> e : merged.entrySet()) {
+            endpoints.put(e.getKey(), e.getValue().summary(seconds));
+            total += e.getValue().count();
+        }
+        stage.put("sessions", sessions[0]);
+        stage.put("requests", total);
+        stage.put("throughput", EndpointStats.round(total / (double) seconds));
+        stage.put("endpoints", endpoints);
+        return stage;
+    }
+
+    /** One UI session; stops at the first failed request (later ones need its ids) or at the deadline. */
+    private void session(Map<String, EndpointStats> stats, int people, long deadline) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        JsonNode group = call(stats, "POST /groups", "/groups", Map.of("name", "load"), deadline);
+        if (group == null) return;
+        String groups = "/groups/" + group.get("id").asLong();
+
+        List<Long> personIds = new ArrayList<>();
+        for (int i = 0; i < people; i++) {
+            JsonNode p = call(stats, "POST /groups/{id}/people", groups + "/people", Map.of("name", "p" + i), deadline);
+            if (p == null) return;
+            personIds.add(p.get("id").asLong());
+        }
+
+        for (int e = 0; e < events; e++) {
+            Long payer = personIds.get(rnd.nextInt(people));
+            JsonNode ev = call(stats, "POST /groups/{id}/events", groups + "/events",
+                    Map.of("title", "e" + e, "amount", 1 + rnd.nextInt(500), "payerId", payer), deadline);
+            if (ev == null) return;
+
+            Set<Long> parts = new LinkedHashSet<>(List.of(payer));
+            int k = 1 + rnd.nextInt(Math.min(8, people));
+            while (parts.size() < k) parts.add(personIds.get(rnd.nextInt(people)));
+            if (call(stats, "POST /groups/{id}/events/{id}/participants",
+                    groups + "/events/" + ev.get("id").asLong() + "/participants",
+                    Map.of("participants", parts), deadline) == null) return;
+
+            if (rnd.nextInt(4) == 0 && call(stats, "POST /groups/{id}/settle-debug",
+                    groups + "/settle-debug", null, deadline) == null) return;
+        }
+        call(stats, "POST /groups/{id}/settle", groups + "/settle", null, deadline);
+    }
+
+    private JsonNode call(Map<String, EndpointStats> stats, String endpoint, String path, Object body, long deadline) {
+        if (System.nanoTime() >= deadline) return null;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(api + path))
+                    .header("Content-Type", "application/json")
+                    .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+            long started = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            long finished = System.nanoTime();
+            boolean ok = response.statusCode() < 300;
+            // a request still running at the deadline belongs to no window
+            if (finished <= deadline) stats.get(endpoint).record(finished - started, ok);
+            return ok ? mapper.readTree(response.body()) : null;
+        } catch (IOException ex) {
+            stats.get(endpoint).record(0, false);
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // -------------------------------
+    // REPORTING
+    // -------------------------------
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> stage) {
+        System.out.printf("%n people=%s concurrency=%s sessions=%s requests=%s throughput=%s req/s%n",
+                stage.get("people"), stage.get("concurrency"), stage.get("sessions"), stage.get("requests"),
+                stage.get("throughput"));
+        System.out.printf(" %-44s %8s %6s %10s %9s %9s %9s%n", "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, Object> e : ((Map<String, Object>) stage.get("endpoints")).entrySet()) {
+            Map<String, Object> s = (Map<String, Object>) e.getValue();
+            System.out.printf(" %-44s %8s %6s %10s %9s %9s %9s%n", e.getKey(), s.get("count"), s.get("errors"),
+                    s.get("throughput"), s.get("p50Ms"), s.get("p99Ms"), s.get("maxMs"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void compare(JsonNode baseline, List<Map<String, Object>> stages) {
+        System.out.printf("%nChange against baseline (throughput / p99; + is more requests or higher latency)%n");
+        for (Map<String, Object> stage : stages) {
+            JsonNode before = null;
+            for (JsonNode b : baseline.path("stages")) {
+                if (b.path("people").asInt() == (int) stage.get("people")
+                        && b.path("concurrency").asInt() == (int) stage.get("concurrency")) before = b;
+            }
+            if (before == null) continue;
+            System.out.printf(" people=%s concurrency=%s%n", stage.get("people"), stage.get("concurrency"));
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) stage.get("endpoints")).entrySet()) {
+                JsonNode b = before.path("endpoints").path(e.getKey());
+                if (b.isMissingNode()) continue;
+                Map<String, Object> s = (Map<String, Object>) e.getValue();
+                System.out.printf("  %-44s %+8.1f%% %+8.1f%%%n", e.getKey(),
+                        change(b.path("throughput").asDouble(), (double) s.get("throughput")),
+                        change(b.path("p99Ms").asDouble(), (double) s.get("p99Ms")));
+            }
+        }
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+
+    private static int[] ints(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.equall.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Application metrics on top of the actuator defaults (per-endpoint latency is the
+ * built-in http.server.requests timer). Exported at /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final SqlStatementMetrics sqlMetrics;
+
+    public MetricsConfig(MeterRegistry registry) {
+        this.sqlMetrics = new SqlStatementMetrics(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspector() {
+        return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, sqlMetrics);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlMetrics).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.equall.config;
+
+import com.example.equall.service.CentsSettlementEngine;
+import com.example.equall.service.DecimalSettlementEngine;
+import com.example.equall.service.MinimalSettlementSolver;
+import com.example.equall.service.SettlementCache;
+import com.example.equall.service.SettlementEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class SettlementConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SettlementConfig.class);
+
+    /**
+     * Settlement arithmetic engine.
+     * equall.settlement.engine=cents (default) | decimal
+     */
+    @Bean
+    public SettlementEngine settlementEngine(@Value("${equall.settlement.engine:cents}") String engine) {
+        return switch (engine) {
+            case "cents" -> new CentsSettlementEngine();
+            case "decimal" -> new DecimalSettlementEngine();
+            default -> throw new IllegalArgumentException("Unknown settlement engine: " + engine);
+        };
+    }
+
+    /**
+     * Solver behind mode=minimal. Exact up to max-exact non-zero balances
+     * (memory grows as 2^max-exact), greedy fallback beyond that or after the time budget.
+     */
+    @Bean
+    public MinimalSettlementSolver minimalSettlementSolver(
+            SettlementEngine engine,
+            @Value("${equall.settlement.minimal.max-exact:20}") int maxExact,
+            @Value("${equall.settlement.minimal.time-budget-ms:250}") long budgetMillis) {
+        return new MinimalSettlementSolver(engine, maxExact, budgetMillis);
+    }
+
+    @Bean
+    public SettlementCache settlementCache(
+            @Value("${equall.settlement.cache.max-entries:1000}") int maxEntries,
+            @Value("${equall.settlement.cache.ttl-seconds:600}") long ttlSeconds,
+            MeterRegistry registry) {
+        SettlementCache cache = new SettlementCache(maxEntries, ttlSeconds);
+        cache.bindTo(registry);
+        return cache;
+    }
+
+    /**
+     * Workers of batch settlement. Each worker holds one pooled connection while it settles
+     * a group, so keep this below spring.datasource.hikari.maximum-pool-size.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService settlementBatchExecutor(
+            @Value("${equall.settlement.batch.concurrency:4}") int concurrency) {
+        return Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("settle-batch-"));
+    }
+
+    /**
+     * Runs POST /settle and /settle-debug off the request threads. Bounded in both threads and
+     * queue: when threads + queue-depth settlements are pending, new ones are rejected (429)
+     * instead of piling up. Exposed as executor.* metrics with name=settle.requests.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor settlementRequestExecutor(
+            @Value("${equall.settlement.requests.threads:4}") int threads,
+            @Value("${equall.settlement.requests.queue-depth:64}") int queueDepth,
+            MeterRegistry registry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), new CustomizableThreadFactory("settle-req-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "settle.requests", Collections.emptyList()).bindTo(registry);
+        return executor;
+    }
+
+    /**
+     * Workers of the parallel ledger recompute; each holds one pooled connection while it
+     * reads its slice of the events. The recompute's caller holds another one while it waits,
+     * so there are fewer workers than pooled connections (one worker turns parallel recompute off).
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ledgerAggregationExecutor(
+            @Value("${equall.ledger.parallel.workers:4}") int workers, DataSource dataSource) {
+        int threads = Math.max(1, Math.min(workers, poolSize(dataSource) - 1));
+        if (threads < workers) {
+            log.warn("equall.ledger.parallel.workers={} lowered to {} to fit the connection pool", workers, threads);
+        }
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("ledger-agg-"));
+    }
+
+    // smallest connection pool statements may run on (every shard has its own)
+    private static int poolSize(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource pool) return pool.getMaximumPoolSize();
+        if (dataSource instanceof ShardRoutingDataSource routing) {
+            return routing.shards().stream().mapToInt(SettlementConfig::poolSize).min().orElse(Integer.MAX_VALUE);
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /** Sends queued group stream events to subscribers (and computes the pushed settlements). */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService groupStreamExecutor(@Value("${equall.stream.send-threads:4}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("group-stream-"));
+    }
+
+    /** Rebuilds materialised group summaries after writes (GroupSummaryService). */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService groupSummaryExecutor(@Value("${equall.summary.rebuild-threads:2}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("group-summary-"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.equall.config;
+
+import com.example.equall.service.ShardDirectory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Points requests under /api/groups/{groupId} at the group's shard before the handler runs,
+ * i.e. before the request's first statement takes a connection. Work the handler hands to
+ * other threads carries the shard itself ({@link ShardDirectory#inGroup}).
+ */
+public class ShardRoutingInterceptor implements AsyncHandlerInterceptor {
+
+    private final ShardDirectory shards;
+
+    public ShardRoutingInterceptor(ShardDirectory shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object vars = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (vars instanceof Map<?, ?> map && map.get("groupId") instanceof String id) {
+            try {
+                shards.enter(Long.valueOf(id));
+            } catch (NumberFormatException ex) {
+                // not a group id: argument conversion answers 400
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ShardDirectory.leave();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        ShardDirectory.leave();
+    }
+}
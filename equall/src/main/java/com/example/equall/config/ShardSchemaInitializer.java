@@ -0,0 +1,120 @@
+package com.example.equall.config;
+
+import com.example.equall.service.ShardDirectory;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prepares shards 1..n at startup, before requests are served (shard 0 is set up by
+ * spring.jpa.hibernate.ddl-auto as usual):
+ * <ul>
+ *   <li>creates the mapped tables on a shard that has none, if ddl-auto creates schemas;</li>
+ *   <li>moves every id generator (identity columns, sequences) up into the shard's id range,
+ *       so ids stay unique across shards and rows can move between them unchanged;</li>
+ *   <li>loads the directory of relocated groups.</li>
+ * </ul>
+ * Generators are read and restarted with H2 statements. MySQL is not supported: its
+ * auto-increment follows ids inserted explicitly, so a moved group would drag a shard's
+ * counter into another shard's range.
+ */
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    private final EntityManagerFactory emf;
+    private final ShardDirectory shards;
+    private final boolean createSchema;
+
+    public ShardSchemaInitializer(EntityManagerFactory emf, ShardDirectory shards, String ddlAuto) {
+        this.emf = emf;
+        this.shards = shards;
+        this.createSchema = switch (ddlAuto) {
+            case "create", "create-drop", "update" -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactoryImplementor sf = emf.unwrap(SessionFactoryImplementor.class);
+        for (int shard = 1; shard < shards.shardCount(); shard++) {
+            try (Connection c = shards.dataSource(shard).getConnection()) {
+                String product = c.getMetaData().getDatabaseProductName();
+                if (!"H2".equals(product)) {
+                    throw new IllegalStateException("Sharding supports H2 shards only, shard " + shard + " is " + product);
+                }
+                if (createSchema && !hasTable(c, "groups")) {
+                    log.info("Creating schema on shard {}", shard);
+                    shards.onShard(shard, () -> {
+                        sf.getSchemaManager().exportMappedObjects(true);
+                        return null;
+                    });
+                }
+                alignIds(sf, c, (long) shard << ShardDirectory.ID_BITS);
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Cannot prepare shard " + shard, ex);
+            }
+        }
+        shards.loadRelocations();
+    }
+
+    private static boolean hasTable(Connection c, String table) throws SQLException {
+        try (ResultSet rs = c.getMetaData().getTables(null, null, table.toUpperCase(Locale.ROOT), null)) {
+            return rs.next();
+        }
+    }
+
+    // restarts generators still below the shard's range at its start; later starts find them in range
+    private static void alignIds(SessionFactoryImplementor sf, Connection c, long base) throws SQLException {
+        List<EntityPersister> persisters = new ArrayList<>();
+        sf.getMappingMetamodel().forEachEntityDescriptor(persisters::add);
+        try (Statement st = c.createStatement()) {
+            for (EntityPersister persister : persisters) {
+                if (!(persister instanceof AbstractEntityPersister p)) continue;
+                Generator generator = p.getGenerator();
+                if (generator instanceof SequenceStyleGenerator seq) {
+                    String name = seq.getDatabaseStructure().getPhysicalName().render();
+                    long next = current(c, "select base_value from information_schema.sequences where sequence_name = ?",
+                            name.toUpperCase(Locale.ROOT));
+                    // pooled ids may start one increment below the sequence value
+                    long start = base + seq.getDatabaseStructure().getIncrementSize();
+                    if (next < base) st.execute("alter sequence " + name + " restart with " + start);
+                } else if (generator instanceof IdentityGenerator) {
+                    String table = p.getTableName();
+                    String column = p.getIdentifierColumnNames()[0];
+                    long next = current(c, "select identity_base from information_schema.columns"
+                                    + " where table_name = ? and column_name = ?",
+                            table.toUpperCase(Locale.ROOT), column.toUpperCase(Locale.ROOT));
+                    if (next < base) st.execute("alter table " + table + " alter column " + column + " restart with " + base);
+                }
+            }
+        }
+    }
+
+    private static long current(Connection c, String sql, String... args) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) ps.setString(i + 1, args[i]);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new IllegalStateException("No id generator found for " + String.join(".", args));
+                return rs.getLong(1);
+            }
+        }
+    }
+}
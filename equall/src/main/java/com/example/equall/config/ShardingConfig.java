@@ -0,0 +1,76 @@
+package com.example.equall.config;
+
+import com.example.equall.service.ShardDirectory;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Group sharding, on when equall.shards.urls lists the shard databases (shard 0 first;
+ * spring.datasource.url is then unused). Every shard gets its own Hikari pool with the
+ * spring.datasource username, password and hikari settings. Open-in-view is turned off
+ * ({@link ShardingEnvironmentPostProcessor}) so every transaction is routed on its own.
+ * See {@link ShardDirectory}.
+ */
+@Configuration
+@ConditionalOnProperty("equall.shards.urls")
+public class ShardingConfig implements WebMvcConfigurer {
+
+    // looked up late: the directory needs the DataSource defined here
+    private final ObjectProvider<ShardDirectory> shards;
+
+    public ShardingConfig(ObjectProvider<ShardDirectory> shards) {
+        this.shards = shards;
+    }
+
+    @Bean
+    public ShardRoutingDataSource dataSource(@Value("${equall.shards.urls}") List<String> urls, Environment env) {
+        Binder binder = Binder.get(env);
+        List<DataSource> pools = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setJdbcUrl(urls.get(i).trim());
+            pool.setUsername(env.getProperty("spring.datasource.username"));
+            pool.setPassword(env.getProperty("spring.datasource.password"));
+            pool.setPoolName(env.getProperty("spring.datasource.hikari.pool-name", "equall") + "-shard" + i);
+            pools.add(pool);
+        }
+        return new ShardRoutingDataSource(pools);
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(EntityManagerFactory emf, ShardDirectory shards,
+                                                         @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return new ShardSchemaInitializer(emf, shards, ddlAuto);
+    }
+
+    // streamed responses are written on the MVC async executor, on the request's shard; the
+    // app's own executors keep Boot from creating applicationTaskExecutor, so MVC's is set here
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setTaskDecorator(ShardDirectory::propagate);
+        configurer.setTaskExecutor(executor);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ShardRoutingInterceptor(shards.getObject())).addPathPatterns("/api/groups/**");
+    }
+}
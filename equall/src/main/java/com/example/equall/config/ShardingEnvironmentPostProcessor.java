@@ -0,0 +1,27 @@
+package com.example.equall.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Turns spring.jpa.open-in-view off when sharding is on (equall.shards.urls set). The
+ * request-wide EntityManager would keep the connection of the request's first statement, so
+ * later statements meant for another shard would silently run on that one. Without it every
+ * transaction takes a connection of the shard current at its start.
+ * <p>
+ * Registered in META-INF/spring.factories; added first, so it wins over application properties.
+ */
+public class ShardingEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String SOURCE = "equallSharding";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment env, SpringApplication application) {
+        if (env.getProperty("equall.shards.urls", "").isBlank()) return;
+        env.getPropertySources().addFirst(new MapPropertySource(SOURCE, Map.of("spring.jpa.open-in-view", "false")));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.equall.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL statements Hibernate prepares: in total (equall.sql.statements) and per
+ * HTTP request, tagged by method and URI pattern (equall.sql.statements.per.request).
+ * Statements run on another thread than the request (e.g. streamed responses) only
+ * show up in the total.
+ */
+public class SqlStatementMetrics implements StatementInspector, AsyncHandlerInterceptor {
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final Counter total;
+
+    public SqlStatementMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.total = Counter.builder("equall.sql.statements")
+                .description("SQL statements prepared by Hibernate")
+                .register(registry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        total.increment();
+        int[] count = CURRENT.get();
+        if (count != null) count[0]++;
+        return sql;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CURRENT.set(new int[1]);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        int[] count = CURRENT.get();
+        CURRENT.remove();
+        if (count == null) return;
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("equall.sql.statements.per.request")
+                .description("SQL statements prepared while handling one request")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(registry)
+                .record(count[0]);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.equall.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import java.util.Map;
+
+/**
+ * Error responses. Client errors Spring MVC raises itself (unreadable JSON, a path variable
+ * that is not a number, missing parameters, wrong method, unknown paths) keep their 4xx
+ * status via {@link ResponseEntityExceptionHandler}, as do exceptions carrying their own
+ * status. Controllers still answer bad input themselves with 400; anything else is an
+ * unexpected failure: logged with its stack trace and returned as a JSON 500 that does not
+ * repeat the exception message (the exception is also tagged on http.server.requests).
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<?> handleUnexpected(Exception ex, HttpServletRequest request) {
+        if (ex instanceof ErrorResponse error) {
+            return ResponseEntity.status(error.getStatusCode()).headers(error.getHeaders()).body(error.getBody());
+        }
+        ResponseStatus annotated = AnnotatedElementUtils.findMergedAnnotation(ex.getClass(), ResponseStatus.class);
+        if (annotated != null) {
+            return ResponseEntity.status(annotated.code()).body(Map.of(
+                    "status", annotated.code().value(),
+                    "error", annotated.code().getReasonPhrase(),
+                    "path", request.getRequestURI()));
+        }
+
+        log.error("Request {} {} failed", request.getMethod(), request.getRequestURI(), ex);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                "status", 500,
+                "error", HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase(),
+                "path", request.getRequestURI()));
+    }
+}
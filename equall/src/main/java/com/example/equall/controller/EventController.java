@@ -2,11 +2,19 @@ package com.example.equall.controller;
 
 import com.example.equall.model.*;
 import com.example.equall.repository.*;
+import com.example.equall.service.BalanceLedgerService;
+import com.example.equall.service.EventQueryService;
+import com.example.equall.service.FxRateService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -14,9 +22,13 @@ import java.util.*;
  * Accepts participants as array of personIds or objects with personId.
  * Example bodies:
  * { "participants": [1,2] }
- * { "participants": [ { "personId": 1 }, { "personId": 2 } ] }
+ * { "participants": [ { "personId": 1 }, { "personId": 2, "share": 2 } ] }
  *
- * Duplicate-safe and ignores 'share' (uses default share = 1).
+ * Duplicate-safe. Each event has a split mode (equal, shares, exact, percent, see {@link SplitMode});
+ * participant objects carry the mode's value ("share", "amount" or "percent"), default share = 1.
+ * Owed amounts are computed once per participant change and stored, never at settlement time.
+ * Events may be entered in another currency ("currency": "USD"); the amount is converted to
+ * the group's base currency once, on create, and settled in it (see {@link FxRateService}).
  */
 @RestController
 @RequestMapping("/api/groups/{groupId}/events")
@@ -26,26 +38,38 @@ public class EventController {
     private final PersonRepository personRepo;
     private final EventRepository eventRepo;
     private final EventParticipantRepository participantRepo;
+    private final BalanceLedgerService ledger;
+    private final EventQueryService eventQuery;
+    private final FxRateService fx;
 
     public EventController(GroupRepository groupRepo,
                            PersonRepository personRepo,
                            EventRepository eventRepo,
-                           EventParticipantRepository participantRepo) {
+                           EventParticipantRepository participantRepo,
+                           BalanceLedgerService ledger,
+                           EventQueryService eventQuery,
+                           FxRateService fx) {
         this.groupRepo = groupRepo;
         this.personRepo = personRepo;
         this.eventRepo = eventRepo;
         this.participantRepo = participantRepo;
+        this.ledger = ledger;
+        this.eventQuery = eventQuery;
+        this.fx = fx;
     }
 
     // -------------------------------
-    // CREATE EVENT (same as before)
+    // CREATE EVENT
+    // Body: { "title", "amount", "payerId", "split"?, "currency"? } (currency defaults to the group's)
     // -------------------------------
     @PostMapping
+    @Transactional
     public ResponseEntity<?> createEvent(
             @PathVariable Long groupId,
             @RequestBody Map<String, Object> body) {
 
-        Optional<GroupEntity> maybeGroup = groupRepo.findById(groupId);
+        // the group row first, like every writer of the group's balances
+        Optional<GroupEntity> maybeGroup = groupRepo.lockById(groupId);
         if (maybeGroup.isEmpty()) {
             return ResponseEntity.badRequest().body("Group not found");
         }
@@ -53,6 +77,15 @@ public class EventController {
         GroupEntity group = maybeGroup.get();
         String title = (String) body.getOrDefault("title", "Untitled Event");
 
+        SplitMode split = SplitMode.SHARES;
+        if (body.get("split") != null) {
+            try {
+                split = SplitMode.parse(body.get("split"));
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().body(ex.getMessage());
+            }
+        }
+
         if (!body.containsKey("amount")) {
             return ResponseEntity.badRequest().body("Amount missing");
         }
@@ -87,33 +120,48 @@ public class EventController {
         event.setAmount(amount);
         event.setPayer(payer);
         event.setGroup(group);
+        event.setSplitMode(split);
+        try {
+            fx.convert(event, body.get("currency"), fx.baseCurrencyOf(group));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
 
         Event saved = eventRepo.save(event);
+        ledger.recordPayment(saved);
+        groupRepo.recordEvents(groupId, 1);
 
         return ResponseEntity.created(URI.create("/api/groups/" + groupId + "/events/" + saved.getId()))
                 .body(saved);
     }
 
     // -------------------------------
-    // ADD PARTICIPANTS (no shares, duplicates safe)
+    // ADD PARTICIPANTS (duplicates safe)
     // Body examples:
     // { "participants": [1,2] }
-    // { "participants": [ {"personId":1}, {"personId":2} ] }
+    // { "participants": [ {"personId":1}, {"personId":2, "share":2} ] }
+    // Values use the event's split mode ("share", "amount" or "percent"); the whole split is
+    // re-validated, so exact/percent events are easier to change with PUT below.
+    // Response: { "added": [ids], "duplicates": [ids], "rejected": [ {"value", "reason"} ] }
+    // Set-based: one query for the persons, one for existing participants, one batched insert.
     // -------------------------------
     @PostMapping("/{eventId}/participants")
+    @Transactional
     public ResponseEntity<?> addParticipants(
             @PathVariable Long groupId,
             @PathVariable Long eventId,
             @RequestBody Map<String, Object> body) {
 
-        // validate group
-        if (groupRepo.findById(groupId).isEmpty()) {
+        // validate and lock group
+        if (groupRepo.lockById(groupId).isEmpty()) {
             return ResponseEntity.badRequest().body("Group not found");
         }
 
-        // validate event
+        // validate event (must belong to this group)
         Optional<Event> eventOpt = eventRepo.findById(eventId);
-        if (eventOpt.isEmpty()) return ResponseEntity.badRequest().body("Event not found");
+        if (eventOpt.isEmpty() || !Objects.equals(eventOpt.get().getGroup().getId(), groupId)) {
+            return ResponseEntity.badRequest().body("Event not found");
+        }
         Event event = eventOpt.get();
 
         // parse participants entry
@@ -124,61 +172,204 @@ public class EventController {
         Object pObj = body.get("participants");
         if (!(pObj instanceof List)) return ResponseEntity.badRequest().body("'participants' must be an array");
 
-        List<?> list = (List<?>) pObj;
-        List<EventParticipant> saved = new ArrayList<>();
+        SplitMode mode = event.getSplitMode() == null ? SplitMode.SHARES : event.getSplitMode();
+        List<Map<String, Object>> rejected = new ArrayList<>();
+        Map<Long, BigDecimal> requested = new LinkedHashMap<>();
+        List<Long> duplicates = new ArrayList<>();
+        for (Object item : (List<?>) pObj) {
+            Long personId = ParticipantItems.personIdOf(item);
+            if (personId == null) {
+                rejected.add(Map.of("value", String.valueOf(item), "reason", "invalid person id"));
+            } else if (requested.containsKey(personId)) {
+                duplicates.add(personId);
+            } else {
+                try {
+                    requested.put(personId, ParticipantItems.splitValueOf(item, mode));
+                } catch (IllegalArgumentException ex) {
+                    rejected.add(Map.of("value", String.valueOf(item), "reason", ex.getMessage()));
+                }
+            }
+        }
 
-        for (Object item : list) {
-            Long personId = null;
+        // one query for the requested persons that belong to the group ...
+        Map<Long, Person> persons = new HashMap<>();
+        if (!requested.isEmpty()) {
+            for (Person p : personRepo.findByGroupIdAndIdIn(groupId, requested.keySet())) persons.put(p.getId(), p);
+        }
+        // ... and one for who already participates
+        List<EventParticipant> before = participantRepo.findByEventIdOrderById(eventId);
+        Set<Long> existing = new HashSet<>();
+        for (EventParticipant ep : before) existing.add(ep.getPerson().getId());
+
+        List<EventParticipant> toAdd = new ArrayList<>();
+        List<Long> added = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> r : requested.entrySet()) {
+            Long personId = r.getKey();
+            if (!persons.containsKey(personId)) {
+                rejected.add(Map.of("value", String.valueOf(personId), "reason", "person not in group"));
+            } else if (existing.contains(personId)) {
+                duplicates.add(personId);
+            } else {
+                EventParticipant ep = new EventParticipant();
+                ep.setEvent(event);
+                ep.setPerson(persons.get(personId));
+                ep.setShare(r.getValue());
+                toAdd.add(ep);
+                added.add(personId);
+            }
+        }
 
-            if (item instanceof Number) {
-                personId = ((Number) item).longValue();
-            } else if (item instanceof Map) {
-                Object pid = ((Map<?,?>) item).get("personId");
-                if (pid instanceof Number) personId = ((Number) pid).longValue();
-                else if (pid != null) {
-                    try { personId = Long.valueOf(pid.toString()); } catch (Exception ignored) {}
-                }
-            } else if (item instanceof String) {
-                try { personId = Long.valueOf((String) item); } catch (Exception ignored) {}
+        if (!toAdd.isEmpty()) {
+            List<EventParticipant> after = new ArrayList<>(before);
+            after.addAll(toAdd);
+            try {
+                // validates the split and stores every row's owed amount before anything is written
+                ledger.recordParticipants(event, before, after);
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().body(ex.getMessage());
             }
+            // inserted as one JDBC batch on flush
+            participantRepo.saveAll(toAdd);
+            groupRepo.bumpRevision(groupId);
+        }
 
-            if (personId == null) continue;
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("added", added);
+        resp.put("duplicates", duplicates);
+        resp.put("rejected", rejected);
+        return ResponseEntity.ok(resp);
+    }
 
-            // check person exists
-            Optional<Person> personOpt = personRepo.findById(personId);
-            if (personOpt.isEmpty()) continue;
+    // -------------------------------
+    // REPLACE PARTICIPANTS (and optionally the split mode)
+    // Body: { "split": "exact", "participants": [ {"personId":1, "amount":12.50}, {"personId":2, "amount":7.50} ] }
+    // Value field per mode: shares -> "share" (default 1), exact -> "amount", percent -> "percent";
+    // equal takes plain ids. Exact amounts must add up to the event amount, percentages to 100.
+    // Without "split" the event keeps its mode. Rows of people still listed are updated in place.
+    // Response: { "split", "participants": [ {personId, share, owed} ] }
+    // -------------------------------
+    @PutMapping("/{eventId}/participants")
+    @Transactional
+    public ResponseEntity<?> replaceParticipants(
+            @PathVariable Long groupId,
+            @PathVariable Long eventId,
+            @RequestBody Map<String, Object> body) {
 
-            // duplicate check (eventId + personId)
-            Optional<EventParticipant> existing = participantRepo.findByEventIdAndPersonId(eventId, personId);
-            if (existing.isPresent()) {
-                // skip duplicate
-                continue;
+        if (groupRepo.lockById(groupId).isEmpty()) {
+            return ResponseEntity.badRequest().body("Group not found");
+        }
+        Optional<Event> eventOpt = eventRepo.findById(eventId);
+        if (eventOpt.isEmpty() || !Objects.equals(eventOpt.get().getGroup().getId(), groupId)) {
+            return ResponseEntity.badRequest().body("Event not found");
+        }
+        Event event = eventOpt.get();
+
+        Object pObj = body.get("participants");
+        if (!(pObj instanceof List)) return ResponseEntity.badRequest().body("'participants' must be an array");
+
+        SplitMode mode;
+        Map<Long, BigDecimal> requested = new LinkedHashMap<>();
+        try {
+            mode = body.get("split") != null ? SplitMode.parse(body.get("split"))
+                    : event.getSplitMode() == null ? SplitMode.SHARES : event.getSplitMode();
+            for (Object item : (List<?>) pObj) {
+                Long personId = ParticipantItems.personIdOf(item);
+                if (personId == null) throw new IllegalArgumentException("Invalid person id: " + item);
+                if (requested.put(personId, ParticipantItems.splitValueOf(item, mode)) != null) {
+                    throw new IllegalArgumentException("Duplicate participant: " + personId);
+                }
             }
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
 
-            // create participant with default share = 1
-            EventParticipant ep = new EventParticipant();
-            ep.setEvent(event);
-            ep.setPerson(personOpt.get());
-            ep.setShare(BigDecimal.ONE);
+        Map<Long, Person> persons = new HashMap<>();
+        if (!requested.isEmpty()) {
+            for (Person p : personRepo.findByGroupIdAndIdIn(groupId, requested.keySet())) persons.put(p.getId(), p);
+        }
+        for (Long personId : requested.keySet()) {
+            if (!persons.containsKey(personId)) return ResponseEntity.badRequest().body("Person not in group: " + personId);
+        }
 
-            try {
-                EventParticipant savedEp = participantRepo.save(ep);
-                saved.add(savedEp);
-            } catch (Exception ex) {
-                // unique constraint or other db error -> skip
-                continue;
+        // rows as they were (owed reversed by the ledger) vs. rows after the change
+        List<EventParticipant> current = participantRepo.findByEventIdOrderById(eventId);
+        List<EventParticipant> before = new ArrayList<>(current.size());
+        List<EventParticipant> after = new ArrayList<>();
+        List<EventParticipant> removed = new ArrayList<>();
+        for (EventParticipant ep : current) {
+            before.add(new EventParticipant(ep.getId(), event, ep.getPerson(), ep.getShare(), ep.getOwed()));
+            BigDecimal value = requested.remove(ep.getPerson().getId());
+            if (value == null) {
+                removed.add(ep);
+            } else {
+                ep.setShare(value);
+                after.add(ep);
             }
         }
+        List<EventParticipant> toAdd = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> r : requested.entrySet()) {
+            toAdd.add(new EventParticipant(null, event, persons.get(r.getKey()), r.getValue(), null));
+        }
+        after.addAll(toAdd);
+        event.setSplitMode(mode);
 
-        return ResponseEntity.ok(saved);
+        try {
+            ledger.recordParticipants(event, before, after);
+        } catch (IllegalArgumentException ex) {
+            // shares and mode were already changed on managed rows
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        participantRepo.deleteAll(removed);
+        participantRepo.saveAll(toAdd);
+        groupRepo.bumpRevision(groupId);
+
+        List<Map<String, Object>> parts = new ArrayList<>();
+        for (EventParticipant ep : after) {
+            Map<String, Object> p = new LinkedHashMap<>();
+            p.put("personId", ep.getPerson().getId());
+            p.put("share", ep.getShare());
+            p.put("owed", ep.getOwed());
+            parts.add(p);
+        }
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("split", mode);
+        resp.put("participants", parts);
+        return ResponseEntity.ok(resp);
     }
 
     // -------------------------------
-    // LIST EVENTS FOR GROUP
+    // LIST EVENTS FOR GROUP (keyset pages, streamed)
+    // GET ?limit=100&after=<nextCursor>&includeParticipants=true
+    // Response: { "items": [ {id, title, amount, payerId, payerName, participants?} ], "nextCursor": "..." | null }
     // -------------------------------
     @GetMapping
-    public ResponseEntity<?> getEventsForGroup(@PathVariable Long groupId) {
-        List<Event> events = eventRepo.findByGroupId(groupId);
-        return ResponseEntity.ok(events);
+    public ResponseEntity<StreamingResponseBody> getEventsForGroup(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + EventQueryService.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean includeParticipants) {
+
+        if (!groupRepo.existsById(groupId)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (limit < 1 || limit > EventQueryService.MAX_LIMIT) {
+            return badRequestText("limit must be between 1 and " + EventQueryService.MAX_LIMIT);
+        }
+
+        long cursor;
+        try {
+            cursor = after == null ? 0L : Long.parseLong(after);
+        } catch (NumberFormatException ex) {
+            return badRequestText("Invalid cursor");
+        }
+
+        StreamingResponseBody body = out -> eventQuery.writePage(groupId, cursor, limit, includeParticipants, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> badRequestText(String message) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
     }
 }
@@ -0,0 +1,42 @@
+package com.example.equall.controller;
+
+import com.example.equall.service.EventImportService;
+import com.example.equall.service.EventImportService.ImportResult;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Bulk event import, e.g. for migrating a group's history in one request.
+ * Bodies:
+ * Content-Type: application/json    [ { "title", "amount", "payerId", "participants": [1, 2] }, ... ]
+ *                                    or { "events": [ ... ] }
+ * Content-Type: application/x-ndjson one event object per line
+ */
+@RestController
+@RequestMapping("/api/groups/{groupId}")
+public class EventImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final EventImportService importService;
+
+    public EventImportController(EventImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(value = "/events:batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<?> importEvents(@PathVariable Long groupId, HttpServletRequest request)
+            throws IOException {
+        boolean ndjson = request.getContentType() != null && request.getContentType().startsWith(NDJSON);
+        try {
+            ImportResult result = importService.importEvents(groupId, request.getInputStream(), ndjson);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+}
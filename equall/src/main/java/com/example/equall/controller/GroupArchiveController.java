@@ -0,0 +1,61 @@
+package com.example.equall.controller;
+
+import com.example.equall.repository.GroupRepository;
+import com.example.equall.service.GroupArchiveService;
+import com.example.equall.service.GroupArchiveService.ArchiveResult;
+import com.example.equall.service.ShardDirectory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+
+/**
+ * Binary backup / migration of a whole group (see {@link GroupArchiveService} for the format).
+ * GET  /api/groups/{groupId}/export  streams the archive
+ * POST /api/groups/import            body is an archive; creates a new group, 201 with its id
+ */
+@RestController
+@RequestMapping("/api/groups")
+public class GroupArchiveController {
+
+    static final String ARCHIVE = "application/vnd.equall.group-archive";
+
+    private final GroupArchiveService archive;
+    private final GroupRepository groupRepo;
+    private final ShardDirectory shards;
+
+    public GroupArchiveController(GroupArchiveService archive, GroupRepository groupRepo, ShardDirectory shards) {
+        this.archive = archive;
+        this.groupRepo = groupRepo;
+        this.shards = shards;
+    }
+
+    @GetMapping("/{groupId}/export")
+    public ResponseEntity<StreamingResponseBody> exportGroup(@PathVariable Long groupId) {
+        if (!groupRepo.existsById(groupId)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> archive.export(groupId, Channels.newChannel(out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ARCHIVE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"group-" + groupId + ".eqga\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {ARCHIVE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> importGroup(HttpServletRequest request) throws IOException {
+        try {
+            ArchiveResult result = shards.onShard(shards.placeNewGroup(),
+                    () -> archive.importArchive(Channels.newChannel(request.getInputStream())));
+            return ResponseEntity.created(URI.create("/api/groups/" + result.groupId)).body(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+}
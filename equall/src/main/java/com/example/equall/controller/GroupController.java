@@ -4,12 +4,15 @@ import com.example.equall.model.GroupEntity;
 import com.example.equall.model.Person;
 import com.example.equall.repository.GroupRepository;
 import com.example.equall.repository.PersonRepository;
+import com.example.equall.service.BalanceLedgerService;
+import com.example.equall.service.FxRateService;
+import com.example.equall.service.ShardDirectory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/groups")
@@ -17,22 +20,37 @@ public class GroupController {
 
     private final GroupRepository groupRepo;
     private final PersonRepository personRepo;
+    private final BalanceLedgerService ledger;
+    private final FxRateService fx;
+    private final ShardDirectory shards;
 
-    public GroupController(GroupRepository groupRepo, PersonRepository personRepo) {
+    public GroupController(GroupRepository groupRepo, PersonRepository personRepo, BalanceLedgerService ledger,
+                           FxRateService fx, ShardDirectory shards) {
         this.groupRepo = groupRepo;
         this.personRepo = personRepo;
+        this.ledger = ledger;
+        this.fx = fx;
+        this.shards = shards;
     }
 
     /**
      * Create a group.
-     * Body example: { "name": "Trip Goa" }
+     * Body example: { "name": "Trip Goa", "baseCurrency": "INR" }
+     * The base currency (default equall.fx.base-currency) is what events are converted to and
+     * settled in; it is fixed once the group exists. Unknown currencies get 400.
      */
     @PostMapping
     public ResponseEntity<GroupEntity> createGroup(@RequestBody Map<String, String> body) {
         String name = body.getOrDefault("name", "Unnamed Group");
         GroupEntity g = new GroupEntity();
         g.setName(name);
-        GroupEntity saved = groupRepo.save(g);
+        try {
+            g.setBaseCurrency(fx.currencyCode(body.getOrDefault("baseCurrency", fx.baseCurrencyOf(g))));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+        // the shard's id range makes the new id name the shard
+        GroupEntity saved = shards.onShard(shards.placeNewGroup(), () -> groupRepo.save(g));
         return ResponseEntity.created(URI.create("/api/groups/" + saved.getId())).body(saved);
     }
 
@@ -41,8 +59,9 @@ public class GroupController {
      * Body example: { "name": "Alice" }
      */
     @PostMapping("/{groupId}/people")
+    @Transactional
     public ResponseEntity<?> addPerson(@PathVariable Long groupId, @RequestBody Map<String, String> body) {
-        Optional<GroupEntity> maybeGroup = groupRepo.findById(groupId);
+        Optional<GroupEntity> maybeGroup = groupRepo.lockById(groupId);
         if (maybeGroup.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -57,6 +76,8 @@ public class GroupController {
         p.setName(name);
         p.setGroup(group);
         Person saved = personRepo.save(p);
+        ledger.openAccount(group, saved);
+        groupRepo.bumpRevision(groupId);
 
         // Return created person
         return ResponseEntity.created(URI.create("/api/groups/" + groupId + "/people/" + saved.getId())).body(saved);
@@ -65,9 +86,12 @@ public class GroupController {
     /**
      * Get group details including list of people in the group.
      * Returns a JSON object:
-     * { "id": 1, "name": "Trip", "people": [ { person... }, ... ] }
+     * { "id": 1, "name": "Trip", "baseCurrency": "INR", "people": [ { person... }, ... ] }
      */
+    // one persistence context: the people's group is the instance loaded here, not a lazy proxy
+    // (there is no request-wide session when open-in-view is off, as with sharding)
     @GetMapping("/{groupId}")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getGroupWithPeople(@PathVariable Long groupId) {
         Optional<GroupEntity> maybeGroup = groupRepo.findById(groupId);
         if (maybeGroup.isEmpty()) {
@@ -75,15 +99,13 @@ public class GroupController {
         }
         GroupEntity group = maybeGroup.get();
 
-        // fetch all persons and filter by group id (simple approach)
-        List<Person> allPeople = personRepo.findAll();
-        List<Person> peopleInGroup = allPeople.stream()
-                .filter(p -> p.getGroup() != null && Objects.equals(p.getGroup().getId(), groupId))
-                .collect(Collectors.toList());
+        // only this group's people, via the indexed group_id lookup
+        List<Person> peopleInGroup = personRepo.findByGroupId(groupId);
 
         Map<String, Object> resp = new HashMap<>();
         resp.put("id", group.getId());
         resp.put("name", group.getName());
+        resp.put("baseCurrency", fx.baseCurrencyOf(group));
         resp.put("people", peopleInGroup);
 
         return ResponseEntity.ok(resp);
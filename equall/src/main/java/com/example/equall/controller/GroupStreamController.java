@@ -0,0 +1,33 @@
+package com.example.equall.controller;
+
+import com.example.equall.service.GroupStreamService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live updates of one group as server-sent events, so open views do not have to re-poll.
+ * Events: settlement (current plan, first event and after every change), person-added,
+ * event-created, participants-changed, imported (payloads carry per-person paid/owed
+ * deltas), resync (reload everything).
+ */
+@RestController
+@RequestMapping("/api/groups/{groupId}")
+public class GroupStreamController {
+
+    private final GroupStreamService streams;
+
+    public GroupStreamController(GroupStreamService streams) {
+        this.streams = streams;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable Long groupId) {
+        try {
+            return ResponseEntity.ok(streams.subscribe(groupId));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.equall.controller;
+
+import com.example.equall.service.GroupSummaryService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Everything the group page needs in one read, served from the materialised summary row:
+ * { "groupId", "name", "baseCurrency", "revision", "eventCount", "totalSpend",
+ *   "members": [ {personId, name, paid, owed, balance} ],
+ *   "transfers": [ {fromId, fromName, toId, toName, amount} ] }
+ * Amounts are in the group's base currency.
+ */
+@RestController
+@RequestMapping("/api/groups/{groupId}")
+public class GroupSummaryController {
+
+    private final GroupSummaryService summaries;
+
+    public GroupSummaryController(GroupSummaryService summaries) {
+        this.summaries = summaries;
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<String> summary(@PathVariable Long groupId) {
+        try {
+            // stored as JSON already; sent as is
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(summaries.summaryJson(groupId));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.equall.controller;
+
+import com.example.equall.service.BatchSettlementService;
+import com.example.equall.service.BatchSettlementService.BatchSummary;
+import com.example.equall.service.SettlementCache;
+import com.example.equall.service.SettlementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settlement endpoints that are not scoped to a single group.
+ */
+@RestController
+@RequestMapping("/api/settlements")
+public class SettlementAdminController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final SettlementCache cache;
+    private final BatchSettlementService batch;
+    private final ObjectMapper mapper;
+
+    public SettlementAdminController(SettlementCache cache, BatchSettlementService batch, ObjectMapper mapper) {
+        this.cache = cache;
+        this.batch = batch;
+        this.mapper = mapper;
+    }
+
+    // hit/miss/eviction counters of the settlement result cache
+    @GetMapping("/cache")
+    public ResponseEntity<SettlementCache.Stats> cacheStats() {
+        return ResponseEntity.ok(cache.stats());
+    }
+
+    /**
+     * Settle many groups at once.
+     * Body example: { "groupIds": [1, 2, 3] } or { "changedSince": "2025-01-31T00:00:00Z" }
+     * Returns the summary (wall time vs. sum of per-group times) with every group's outcome.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> settleBatch(@RequestParam(required = false) String mode,
+                                         @RequestBody Map<String, Object> body) {
+        try {
+            SettlementService.Mode m = SettlementService.Mode.parse(mode);
+            List<Long> groupIds = requestedGroups(body);
+            return ResponseEntity.ok(batch.settle(groupIds, m));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Same as above with Accept: application/x-ndjson: one line per group as soon as it is
+     * settled, followed by a summary line.
+     */
+    @PostMapping(value = "/batch", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> settleBatchStream(@RequestParam(required = false) String mode,
+                                                                   @RequestBody Map<String, Object> body) {
+        SettlementService.Mode m;
+        List<Long> groupIds;
+        try {
+            m = SettlementService.Mode.parse(mode);
+            groupIds = requestedGroups(body);
+        } catch (IllegalArgumentException ex) {
+            String message = ex.getMessage();
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        StreamingResponseBody stream = out -> {
+            BatchSummary summary = batch.settle(groupIds, m, outcome -> {
+                try {
+                    out.write(mapper.writeValueAsBytes(outcome));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            out.write(mapper.writeValueAsBytes(Map.of("summary", summary)));
+            out.write('\n');
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(stream);
+    }
+
+    private List<Long> requestedGroups(Map<String, Object> body) {
+        Object ids = body.get("groupIds");
+        Object since = body.get("changedSince");
+        if ((ids == null) == (since == null)) {
+            throw new IllegalArgumentException("Exactly one of groupIds or changedSince is required");
+        }
+
+        if (since != null) {
+            try {
+                return batch.groupsChangedSince(Instant.parse(since.toString()));
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid changedSince: " + since);
+            }
+        }
+
+        if (!(ids instanceof List<?> list)) {
+            throw new IllegalArgumentException("groupIds must be an array");
+        }
+        List<Long> groupIds = new ArrayList<>(list.size());
+        for (Object id : list) {
+            try {
+                groupIds.add(Long.valueOf(id.toString()));
+            } catch (NumberFormatException | NullPointerException ex) {
+                throw new IllegalArgumentException("Invalid group id: " + id);
+            }
+        }
+        return groupIds;
+    }
+}
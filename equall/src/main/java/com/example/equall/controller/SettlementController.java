@@ -1,45 +1,211 @@
 package com.example.equall.controller;
 
+import com.example.equall.service.BalanceJournalService;
+import com.example.equall.service.BalanceJournalService.BalancesAsOf;
+import com.example.equall.service.BalanceLedgerService;
+import com.example.equall.service.BalanceLedgerService.ReconciliationReport;
 import com.example.equall.service.SettlementService;
 import com.example.equall.service.SettlementService.Transaction;
 import com.example.equall.service.SettlementService.DetailedResult;
+import com.example.equall.service.ShardDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/groups/{groupId}")
 public class SettlementController {
 
     private final SettlementService settlementService;
+    private final BalanceLedgerService ledger;
+    private final BalanceJournalService journal;
+    private final Executor settleExecutor;
+    private final Counter rejected;
 
-    public SettlementController(SettlementService settlementService) {
+    public SettlementController(SettlementService settlementService,
+                                BalanceLedgerService ledger,
+                                BalanceJournalService journal,
+                                @Qualifier("settlementRequestExecutor") Executor settleExecutor,
+                                MeterRegistry registry) {
         this.settlementService = settlementService;
+        this.ledger = ledger;
+        this.journal = journal;
+        this.settleExecutor = settleExecutor;
+        this.rejected = Counter.builder("equall.settle.rejected")
+                .description("Settle requests refused with 429 because the settlement queue was full")
+                .register(registry);
     }
 
+    /**
+     * Without mode: the plain transaction list (unchanged).
+     * With mode=greedy|minimal: { "algorithm", "computeMicros", "cached", "transactions" };
+     * a cached result reports computeMicros 0.
+     * Responses carry an ETag of the group revision; a matching If-None-Match gets 304
+     * without computing anything. The settlement itself runs on the settlement executor;
+     * 429 with Retry-After when too many settlements are pending.
+     */
     @PostMapping("/settle")
-    public ResponseEntity<?> settleGroup(@PathVariable Long groupId) {
+    public CompletableFuture<ResponseEntity<?>> settleGroup(@PathVariable Long groupId,
+                                                            @RequestParam(required = false) String mode,
+                                                            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        SettlementService.Mode m;
+        String view = mode == null ? "list" : "plan";
         try {
-            List<Transaction> txns = settlementService.settleGroup(groupId);
-            return ResponseEntity.ok(txns);
+            m = SettlementService.Mode.parse(mode);
+            if (notModified(ifNoneMatch, groupId, m, view)) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ifNoneMatch).build());
+            }
         } catch (IllegalArgumentException ex) {
-            return ResponseEntity.badRequest().body(ex.getMessage());
-        } catch (Exception ex) {
-            return ResponseEntity.status(500).body("Failed to compute settlement: " + ex.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ex.getMessage()));
         }
+
+        return offload(() -> {
+            DetailedResult d = settlementService.settleGroupDetailed(groupId, m);
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag(groupId, d.revision, m, view));
+            if (mode == null) {
+                List<Transaction> txns = d.transactions;
+                return ok.body(txns);
+            }
+            return ok.body(Map.of(
+                    "algorithm", d.algorithm,
+                    "computeMicros", d.computeMicros,
+                    "cached", d.cached,
+                    "transactions", d.transactions));
+        });
     }
 
     // Debug endpoint
     @PostMapping("/settle-debug")
-    public ResponseEntity<?> settleGroupDebug(@PathVariable Long groupId) {
+    public CompletableFuture<ResponseEntity<?>> settleGroupDebug(@PathVariable Long groupId,
+                                                                 @RequestParam(required = false) String mode,
+                                                                 @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        SettlementService.Mode m;
+        try {
+            m = SettlementService.Mode.parse(mode);
+            if (notModified(ifNoneMatch, groupId, m, "debug")) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ifNoneMatch).build());
+            }
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ex.getMessage()));
+        }
+
+        return offload(() -> {
+            DetailedResult d = settlementService.settleGroupDetailed(groupId, m);
+            return ResponseEntity.ok().eTag(etag(groupId, d.revision, m, "debug")).body(d);
+        });
+    }
+
+    // Compare the stored balance ledger with a full recompute from events (read-only)
+    @GetMapping("/ledger/reconcile")
+    public ResponseEntity<?> reconcileLedger(@PathVariable Long groupId) {
         try {
-            DetailedResult d = settlementService.settleGroupDetailed(groupId);
-            return ResponseEntity.ok(d);
+            ReconciliationReport report = ledger.reconcile(groupId);
+            return ResponseEntity.ok(report);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
-        } catch (Exception ex) {
-            return ResponseEntity.status(500).body("Failed to compute settlement (debug): " + ex.getMessage());
         }
     }
+
+    /**
+     * Rebuild the balance ledger.
+     * source=events (default): recompute from raw events; returns the drift that was repaired.
+     * source=journal: latest snapshot plus journal tail; returns the number of balance rows.
+     */
+    @PostMapping("/ledger/rebuild")
+    public ResponseEntity<?> rebuildLedger(@PathVariable Long groupId,
+                                           @RequestParam(defaultValue = "events") String source) {
+        try {
+            if ("journal".equals(source)) {
+                return ResponseEntity.ok(Map.of("rows", ledger.rebuildFromJournal(groupId)));
+            }
+            if (!"events".equals(source)) {
+                return ResponseEntity.badRequest().body("Unknown source: " + source);
+            }
+            ReconciliationReport report = ledger.rebuild(groupId);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // Balances as of an instant (ISO-8601, default now), from the latest snapshot plus journal tail
+    @GetMapping("/balances")
+    public ResponseEntity<?> balancesAsOf(@PathVariable Long groupId,
+                                          @RequestParam(required = false) String asOf) {
+        try {
+            Instant at = asOf == null ? Instant.now() : Instant.parse(asOf);
+            BalancesAsOf result = journal.balancesAsOf(groupId, at);
+            return ResponseEntity.ok(result);
+        } catch (DateTimeParseException ex) {
+            return ResponseEntity.badRequest().body("Invalid asOf: " + asOf);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // Snapshot the group's balances as of the journal cutoff (normally done by the periodic snapshot job)
+    @PostMapping("/ledger/snapshot")
+    public ResponseEntity<?> snapshot(@PathVariable Long groupId) {
+        try {
+            return ResponseEntity.ok(Map.of("rows", journal.snapshot(groupId)));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // -------------------------------
+    // Settlements run on the bounded settlement executor, so slow groups never hold request
+    // threads that cheap endpoints need; a full queue answers 429 instead of waiting
+    // -------------------------------
+
+    private CompletableFuture<ResponseEntity<?>> offload(Supplier<ResponseEntity<?>> settle) {
+        Supplier<ResponseEntity<?>> guarded = () -> {
+            try {
+                return settle.get();
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().body(ex.getMessage());
+            }
+        };
+        try {
+            // on the request's shard (a no-op without sharding)
+            return CompletableFuture.supplyAsync(guarded, task -> settleExecutor.execute(ShardDirectory.propagate(task)));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Too many settlements in progress, retry later")));
+        }
+    }
+
+    // -------------------------------
+    // ETag helpers: one tag per group revision, mode and response shape
+    // -------------------------------
+
+    private boolean notModified(String ifNoneMatch, Long groupId, SettlementService.Mode mode, String view) {
+        if (ifNoneMatch == null) return false;
+        String current = etag(groupId, settlementService.currentRevision(groupId), mode, view);
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(current) || t.equals("*")) return true;
+        }
+        return false;
+    }
+
+    private static String etag(Long groupId, long revision, SettlementService.Mode mode, String view) {
+        return "\"g" + groupId + "-r" + revision + "-" + mode.name().toLowerCase() + "-" + view + "\"";
+    }
 }
@@ -0,0 +1,51 @@
+package com.example.equall.controller;
+
+import com.example.equall.service.ShardMigrationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Shard maintenance: what each shard holds, moving a group, rebalancing.
+ * With a single database there is one shard and nothing to move.
+ */
+@RestController
+@RequestMapping("/api/shards")
+public class ShardAdminController {
+
+    private final ShardMigrationService migration;
+
+    public ShardAdminController(ShardMigrationService migration) {
+        this.migration = migration;
+    }
+
+    // groups and events per shard
+    @GetMapping
+    public ResponseEntity<List<ShardMigrationService.ShardStats>> stats() {
+        return ResponseEntity.ok(migration.stats());
+    }
+
+    /**
+     * Move one group with all its rows.
+     * POST /api/shards/move?groupId=42&shard=1
+     */
+    @PostMapping("/move")
+    public ResponseEntity<?> move(@RequestParam Long groupId, @RequestParam int shard) {
+        try {
+            return ResponseEntity.ok(migration.move(groupId, shard));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Move groups until the shards hold about as many groups each.
+     * POST /api/shards/rebalance?maxMoves=100
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<ShardMigrationService.RebalanceResult> rebalance(
+            @RequestParam(defaultValue = "100") int maxMoves) {
+        return ResponseEntity.ok(migration.rebalance(maxMoves));
+    }
+}
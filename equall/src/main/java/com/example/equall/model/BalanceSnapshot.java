@@ -0,0 +1,47 @@
+package com.example.equall.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Balance of one person as of {@code takenAt}: the sum of all journal postings of the
+ * group recorded at or before that instant. All rows of one snapshot share the same
+ * (group_id, taken_at); balances at a later time are a snapshot plus the postings after it.
+ */
+@Entity
+@Table(
+        name = "balance_snapshot",
+        indexes = {
+                @Index(name = "idx_snapshot_group_time", columnList = "group_id, taken_at")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshot_seq")
+    @SequenceGenerator(name = "balance_snapshot_seq", sequenceName = "balance_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(name = "person_id", nullable = false)
+    private Long personId;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal paid;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal owed;
+}
@@ -12,21 +12,46 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "event")
+@Table(
+        name = "event",
+        indexes = {
+                // (group_id, id) also serves keyset pagination of a group's events
+                @Index(name = "idx_event_group", columnList = "group_id, id")
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Event {
 
+    // pooled sequence (not IDENTITY) so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_seq")
+    @SequenceGenerator(name = "event_seq", sequenceName = "event_seq", allocationSize = 50)
     private Long id;
 
     private String title;
 
+    // in the group's base currency; the value balances and settlement add up
     private BigDecimal amount;
 
+    // currency the amount was entered in (null on events from before currencies: the base currency)
+    @Column(length = 3)
+    private String currency;
+
+    // entered amount and the rate it was converted with, only when currency is not the base currency
+    @Column(precision = 19, scale = 2)
+    private BigDecimal originalAmount;
+
+    @Column(precision = 19, scale = 10)
+    private BigDecimal fxRate;
+
+    // how the amount is divided among the participants (see EventParticipant.share / owed)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private SplitMode splitMode = SplitMode.SHARES;
+
     // Who paid for this event
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payer_id")
@@ -14,6 +14,10 @@ import java.math.BigDecimal;
         name = "event_participant",
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = {"event_id", "person_id"})
+        },
+        indexes = {
+                @Index(name = "idx_event_participant_event", columnList = "event_id"),
+                @Index(name = "idx_event_participant_person", columnList = "person_id")
         }
 )
 @Data
@@ -22,8 +26,10 @@ import java.math.BigDecimal;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class EventParticipant {
 
+    // pooled sequence (not IDENTITY) so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_participant_seq")
+    @SequenceGenerator(name = "event_participant_seq", sequenceName = "event_participant_seq", allocationSize = 50)
     private Long id;
 
     // which event
@@ -37,7 +43,13 @@ public class EventParticipant {
     @JoinColumn(name = "person_id")
     private Person person;
 
-    // share (weight) of this participant in the event split; default 1
-    @Column(nullable = false)
+    // input of the event's split mode: weight (SHARES), amount (EXACT) or percentage (PERCENT); default 1.
+    // Six decimals so percentages like 33.3333 are stored as given (the default scale of 2 truncated them)
+    @Column(nullable = false, precision = 19, scale = 6)
     private BigDecimal share = BigDecimal.ONE;
+
+    // amount this participant owes for the event, computed from the split when the participants
+    // change; null only on rows written before split modes existed (split on the fly)
+    @Column(precision = 19, scale = 2)
+    private BigDecimal owed;
 }
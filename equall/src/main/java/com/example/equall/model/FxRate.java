@@ -0,0 +1,33 @@
+package com.example.equall.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Exchange rate of one currency against the reference currency (equall.fx.reference).
+ * Filled from the rates file and read into memory by {@link com.example.equall.service.FxRateService};
+ * rows may also be maintained directly in the database.
+ */
+@Entity
+@Table(name = "fx_rate")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxRate {
+
+    // ISO 4217 code, e.g. "USD"
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    // value of one unit of this currency in the reference currency
+    @Column(nullable = false, precision = 19, scale = 10)
+    private BigDecimal rate;
+
+    private Instant updatedAt;
+}
@@ -5,6 +5,10 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.Instant;
 
 @Entity
 @Table(name = "groups")
@@ -12,6 +16,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+// second-level cached when the cache is enabled (prod profile)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "group")
 public class GroupEntity {
 
     @Id
@@ -19,4 +26,19 @@ public class GroupEntity {
     private Long id;
 
     private String name;
+
+    // currency events are converted to and settled in; null means equall.fx.base-currency
+    @Column(length = 3)
+    private String baseCurrency;
+
+    // bumped by every write that changes the group's settlement; used for caching and ETags
+    @Column(nullable = false)
+    private long revision = 0;
+
+    // number of events in the group, kept alongside the revision so settle can report it without a count query
+    @Column(nullable = false)
+    private long eventCount = 0;
+
+    // last time the revision changed; used to pick the groups a nightly batch has to settle
+    private Instant updatedAt = Instant.now();
 }
@@ -0,0 +1,36 @@
+package com.example.equall.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Materialised page data of one group (members, event count, total spend, balances,
+ * suggested transfers) as the JSON served by GET /api/groups/{id}/summary.
+ * Rewritten after writes to the group; only valid while {@code revision} equals the
+ * group's revision. Group id is a plain id so the row never loads the group.
+ */
+@Entity
+@Table(name = "group_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupSummary {
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    // group revision the payload was computed at
+    @Column(nullable = false)
+    private long revision;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    private Instant updatedAt;
+}
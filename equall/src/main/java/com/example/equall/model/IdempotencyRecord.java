@@ -0,0 +1,40 @@
+package com.example.equall.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Stored response of a POST sent with an Idempotency-Key, kept only when
+ * equall.idempotency.persist is on (see {@link com.example.equall.service.IdempotencyService}).
+ * The scope is the request path plus the key; the fingerprint is the SHA-256 of the request body.
+ */
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_created", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 512)
+    private String scope;
+
+    @Column(length = 64, nullable = false)
+    private String fingerprint;
+
+    private int status;
+
+    private String contentType;
+
+    private String location;
+
+    @Lob
+    private byte[] body;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
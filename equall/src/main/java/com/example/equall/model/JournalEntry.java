@@ -0,0 +1,67 @@
+package com.example.equall.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One posting of the append-only balance journal: the paid/owed change of one person
+ * caused by one write. Rows are only ever inserted; summing a group's postings up to a
+ * point in time gives its balances at that time. Group, person and event are plain ids
+ * (no associations) so appending never loads or locks the referenced rows.
+ */
+@Entity
+@Table(
+        name = "ledger_journal",
+        indexes = {
+                @Index(name = "idx_journal_group_time", columnList = "group_id, recorded_at")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntry {
+
+    public enum Type {
+        PERSON_ADDED,
+        EXPENSE_CREATED,
+        PARTICIPANTS_CHANGED,
+        // per-person totals of a bulk import
+        IMPORTED,
+        // drift repaired by a ledger rebuild from events
+        CORRECTION
+    }
+
+    // pooled sequence (not IDENTITY) so appends can be JDBC-batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_journal_seq")
+    @SequenceGenerator(name = "ledger_journal_seq", sequenceName = "ledger_journal_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(name = "person_id", nullable = false)
+    private Long personId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 24)
+    private Type type;
+
+    // event the posting belongs to, if any
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal paid;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal owed;
+
+    @Column(name = "recorded_at", nullable = false)
+    private Instant recordedAt;
+}
@@ -0,0 +1,53 @@
+package com.example.equall.model;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Items of a "participants" array in API bodies, shared by the event endpoints and the bulk
+ * import: a person id (number or numeric string) or an object carrying "personId" and the
+ * split mode's value field, e.g. {"personId": 2, "share": 2}.
+ */
+public final class ParticipantItems {
+
+    private ParticipantItems() {
+    }
+
+    /** Person id of a participant item, or null when it has none. */
+    public static Long personIdOf(Object item) {
+        return idOf(item instanceof Map ? ((Map<?, ?>) item).get("personId") : item);
+    }
+
+    /** Id from a number, a numeric string, or null when neither. */
+    public static Long idOf(Object value) {
+        if (value instanceof Number) return ((Number) value).longValue();
+        if (value != null) {
+            try {
+                return Long.valueOf(value.toString());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Split value of a participant item for {@code mode}: the mode's field ("share",
+     * "amount" or "percent") of an object item, 1 when absent for EQUAL and SHARES.
+     * @throws IllegalArgumentException if the value is missing (EXACT, PERCENT) or not a number
+     */
+    public static BigDecimal splitValueOf(Object item, SplitMode mode) {
+        String field = mode.valueField();
+        Object value = field != null && item instanceof Map ? ((Map<?, ?>) item).get(field) : null;
+        if (value == null) {
+            if (mode == SplitMode.EXACT || mode == SplitMode.PERCENT) {
+                throw new IllegalArgumentException("Missing " + field + " for a participant");
+            }
+            return BigDecimal.ONE;
+        }
+        try {
+            return new BigDecimal(value.toString());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.equall.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Running balance of one person inside one group.
+ * Maintained incrementally on every write so settlement never has to
+ * re-read the group's event history.
+ */
+@Entity
+@Table(
+        name = "person_balance",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"group_id", "person_id"})
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class PersonBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    private GroupEntity group;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "person_id", nullable = false)
+    private Person person;
+
+    // total amount this person paid for events of the group
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal paid = BigDecimal.ZERO;
+
+    // total amount of this person's shares in events of the group
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal owed = BigDecimal.ZERO;
+
+    // paid - owed; positive means the person should receive money
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal net = BigDecimal.ZERO;
+}
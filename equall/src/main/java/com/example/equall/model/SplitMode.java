@@ -0,0 +1,44 @@
+package com.example.equall.model;
+
+import java.util.Locale;
+
+/**
+ * How an event's amount is divided among its participants. The per-participant input
+ * is kept in {@link EventParticipant#getShare()}; the resulting owed amount is computed
+ * once when the participants change and stored in {@link EventParticipant#getOwed()}.
+ */
+public enum SplitMode {
+    /** Same amount for everybody; the share column is ignored. */
+    EQUAL,
+    /** Proportional to each participant's weight. */
+    SHARES,
+    /** Each participant owes the given amount; the amounts must add up to the event amount. */
+    EXACT,
+    /** Each participant owes the given percentage; the percentages must add up to 100. */
+    PERCENT;
+
+    /** Parses the API spelling (case-insensitive; "weighted" is accepted for SHARES). */
+    public static SplitMode parse(Object value) {
+        String s = String.valueOf(value).trim().toUpperCase(Locale.ROOT);
+        if (s.equals("WEIGHTED")) return SHARES;
+        try {
+            return valueOf(s);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown split mode: " + value);
+        }
+    }
+
+    /** Participant field carrying this mode's value in API bodies, or null for EQUAL. */
+    public String valueField() {
+        switch (this) {
+            case SHARES:
+                return "share";
+            case EXACT:
+                return "amount";
+            case PERCENT:
+                return "percent";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.equall.repository;
+
+import com.example.equall.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    // most recent snapshot of a group taken at or before the given instant (null if none)
+    @Query("select max(s.takenAt) from BalanceSnapshot s where s.groupId = :groupId and s.takenAt <= :at")
+    Instant findLatestTakenAt(@Param("groupId") Long groupId, @Param("at") Instant at);
+
+    List<BalanceSnapshot> findByGroupIdAndTakenAt(Long groupId, Instant takenAt);
+}
@@ -1,16 +1,80 @@
 package com.example.equall.repository;
 
 import com.example.equall.model.EventParticipant;
+import com.example.equall.model.SplitMode;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventParticipantRepository extends JpaRepository<EventParticipant, Long> {
 
-    List<EventParticipant> findByEventId(Long eventId);
+    List<EventParticipant> findByEventIdOrderById(Long eventId);
 
-    Optional<EventParticipant> findByEventIdAndPersonId(Long eventId, Long personId);
+    // every participant row of a group's events in one query, grouped by event; scrolled with a
+    // forward-only cursor so callers can fold it without holding all rows
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select e.id as eventId, e.amount as amount, ep.person.id as personId, ep.share as share, " +
+            "ep.owed as owed from EventParticipant ep join ep.event e " +
+            "where e.group.id = :groupId order by e.id, ep.id")
+    Stream<ShareRow> streamShareRowsByGroupId(@Param("groupId") Long groupId);
+
+    // same rows restricted to an event id range (one slice of a parallel recompute)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select e.id as eventId, e.amount as amount, ep.person.id as personId, ep.share as share, " +
+            "ep.owed as owed from EventParticipant ep join ep.event e " +
+            "where e.group.id = :groupId and e.id between :fromId and :toId order by e.id, ep.id")
+    Stream<ShareRow> streamShareRowsByGroupIdAndEventIdBetween(@Param("groupId") Long groupId,
+                                                               @Param("fromId") Long fromId,
+                                                               @Param("toId") Long toId);
+
+    // participants of several events in one query (used per page of the event listing)
+    @Query("select ep.event.id as eventId, p.id as personId, p.name as personName, ep.share as share, " +
+            "ep.owed as owed " +
+            "from EventParticipant ep join ep.person p " +
+            "where ep.event.id in :eventIds order by ep.event.id, ep.id")
+    List<ParticipantRow> findRowsByEventIdIn(@Param("eventIds") Collection<Long> eventIds);
+
+    // every event of a group with its participants as flat rows (event columns repeated per
+    // participant, one row with null person for events without participants); one cursor for an
+    // export. Constructor projection: no proxy per row, which shows at millions of rows
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.equall.repository.EventParticipantRepository$ArchiveRow(" +
+            "e.id, e.title, e.amount, payer.id, payer.name, e.splitMode, e.currency, e.originalAmount, e.fxRate, " +
+            "p.id, p.name, ep.share, ep.owed) " +
+            "from Event e left join e.payer payer left join e.participants ep left join ep.person p " +
+            "where e.group.id = :groupId order by e.id, ep.id")
+    Stream<ArchiveRow> streamArchiveRowsByGroupId(@Param("groupId") Long groupId);
+
+    // personId (and the participant columns) null for an event without participants
+    record ArchiveRow(Long eventId, String title, BigDecimal amount, Long payerId, String payerName,
+                      SplitMode splitMode, String currency, BigDecimal originalAmount, BigDecimal fxRate,
+                      Long personId, String personName, BigDecimal share, BigDecimal owed) {
+    }
+
+    interface ParticipantRow {
+        Long getEventId();
+        Long getPersonId();
+        String getPersonName();
+        BigDecimal getShare();
+        BigDecimal getOwed();
+    }
+
+    interface ShareRow {
+        Long getEventId();
+        BigDecimal getAmount();
+        Long getPersonId();
+        BigDecimal getShare();
+        // null on rows written before split modes
+        BigDecimal getOwed();
+    }
 }
@@ -1,13 +1,67 @@
 package com.example.equall.repository;
 
 import com.example.equall.model.Event;
+import com.example.equall.model.SplitMode;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
     // find events by group id (handy for group view)
     List<Event> findByGroupId(Long groupId);
+
+    // total paid per payer in a group, aggregated by the database
+    @Query("select e.payer.id as personId, sum(e.amount) as total from Event e " +
+            "where e.group.id = :groupId and e.payer is not null and e.amount is not null " +
+            "group by e.payer.id")
+    List<PaidTotal> sumPaidByGroupId(@Param("groupId") Long groupId);
+
+    // same, over the events up to an id (parallel recompute reads the participants of the same events)
+    @Query("select e.payer.id as personId, sum(e.amount) as total from Event e " +
+            "where e.group.id = :groupId and e.id <= :maxId and e.payer is not null and e.amount is not null " +
+            "group by e.payer.id")
+    List<PaidTotal> sumPaidByGroupIdUpTo(@Param("groupId") Long groupId, @Param("maxId") Long maxId);
+
+    // lowest and highest event id of a group, to split its events into id ranges
+    @Query("select min(e.id) as minId, max(e.id) as maxId from Event e where e.group.id = :groupId")
+    IdBounds findIdBoundsByGroupId(@Param("groupId") Long groupId);
+
+    // keyset page of a group's events as flat rows (no entities), read with a forward-only cursor
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select e.id as id, e.title as title, e.amount as amount, p.id as payerId, p.name as payerName, " +
+            "e.splitMode as splitMode, e.currency as currency, e.originalAmount as originalAmount " +
+            "from Event e left join e.payer p " +
+            "where e.group.id = :groupId and e.id > :after order by e.id")
+    Stream<EventRow> streamPage(@Param("groupId") Long groupId, @Param("after") Long after, Limit limit);
+
+    interface EventRow {
+        Long getId();
+        String getTitle();
+        BigDecimal getAmount();
+        Long getPayerId();
+        String getPayerName();
+        SplitMode getSplitMode();
+        String getCurrency();
+        BigDecimal getOriginalAmount();
+    }
+
+    interface IdBounds {
+        Long getMinId();
+        Long getMaxId();
+    }
+
+    interface PaidTotal {
+        Long getPersonId();
+        BigDecimal getTotal();
+    }
 }
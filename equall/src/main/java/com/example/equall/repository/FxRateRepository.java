@@ -0,0 +1,9 @@
+package com.example.equall.repository;
+
+import com.example.equall.model.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, String> {
+}
@@ -1,10 +1,50 @@
 package com.example.equall.repository;
 
 import com.example.equall.model.GroupEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface GroupRepository extends JpaRepository<GroupEntity, Long> {
-    // You can add custom query methods here later, e.g. findByName(...)
+
+    @Query("select g.revision from GroupEntity g where g.id = :groupId")
+    Optional<Long> findRevisionById(@Param("groupId") Long groupId);
+
+    interface GroupStats {
+        long getRevision();
+        long getEventCount();
+    }
+
+    @Query("select g.revision as revision, g.eventCount as eventCount from GroupEntity g where g.id = :groupId")
+    Optional<GroupStats> findStatsById(@Param("groupId") Long groupId);
+
+    // row lock held until commit; serialises writers that must not interleave within a group
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select g from GroupEntity g where g.id = :groupId")
+    Optional<GroupEntity> lockById(@Param("groupId") Long groupId);
+
+    // atomic increment; called by every write that changes balances or membership
+    @Modifying
+    @Query("update GroupEntity g set g.revision = g.revision + 1, g.updatedAt = instant where g.id = :groupId")
+    int bumpRevision(@Param("groupId") Long groupId);
+
+    // new events also change the settlement, so they bump the revision in the same statement
+    @Modifying
+    @Query("update GroupEntity g set g.eventCount = g.eventCount + :count, " +
+            "g.revision = g.revision + 1, g.updatedAt = instant where g.id = :groupId")
+    int recordEvents(@Param("groupId") Long groupId, @Param("count") long count);
+
+    // resets the event counter from the event table (ledger rebuild)
+    @Modifying
+    @Query("update GroupEntity g set g.eventCount = (select count(e) from Event e where e.group.id = :groupId), " +
+            "g.revision = g.revision + 1, g.updatedAt = instant where g.id = :groupId")
+    int recountEvents(@Param("groupId") Long groupId);
 }
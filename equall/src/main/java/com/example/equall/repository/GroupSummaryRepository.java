@@ -0,0 +1,29 @@
+package com.example.equall.repository;
+
+import com.example.equall.model.GroupSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface GroupSummaryRepository extends JpaRepository<GroupSummary, Long> {
+
+    // the stored payload if it is still current: one statement over both primary keys
+    @Query("select s.payload from GroupSummary s, GroupEntity g " +
+            "where s.groupId = :groupId and g.id = :groupId and s.revision = g.revision")
+    Optional<String> findCurrentPayload(@Param("groupId") Long groupId);
+
+    // never replaces a summary with one computed at an older revision
+    @Modifying
+    @Query("update GroupSummary s set s.revision = :revision, s.payload = :payload, s.updatedAt = :now " +
+            "where s.groupId = :groupId and s.revision < :revision")
+    int updateIfNewer(@Param("groupId") Long groupId,
+                      @Param("revision") long revision,
+                      @Param("payload") String payload,
+                      @Param("now") Instant now);
+}
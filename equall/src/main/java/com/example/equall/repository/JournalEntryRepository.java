@@ -0,0 +1,30 @@
+package com.example.equall.repository;
+
+import com.example.equall.model.JournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    // replay of the postings recorded in (after, until], aggregated per person by the database
+    @Query("select j.personId as personId, sum(j.paid) as paid, sum(j.owed) as owed, count(j) as entries " +
+            "from JournalEntry j where j.groupId = :groupId and j.recordedAt > :after and j.recordedAt <= :until " +
+            "group by j.personId")
+    List<PersonSum> sumByPerson(@Param("groupId") Long groupId,
+                                @Param("after") Instant after,
+                                @Param("until") Instant until);
+
+    interface PersonSum {
+        Long getPersonId();
+        BigDecimal getPaid();
+        BigDecimal getOwed();
+        long getEntries();
+    }
+}
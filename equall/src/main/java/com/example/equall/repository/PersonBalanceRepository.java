@@ -0,0 +1,33 @@
+package com.example.equall.repository;
+
+import com.example.equall.model.PersonBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface PersonBalanceRepository extends JpaRepository<PersonBalance, Long> {
+
+    // all balance rows of a group with the person (for names) in one query, ordered by person id
+    @Query("select b from PersonBalance b join fetch b.person where b.group.id = :groupId order by b.person.id")
+    List<PersonBalance> findByGroupIdWithPerson(@Param("groupId") Long groupId);
+
+    // atomic in-place increment, so concurrent writers never lose an update
+    @Modifying
+    @Query("update PersonBalance b set b.paid = b.paid + :paid, b.owed = b.owed + :owed, " +
+            "b.net = b.net + :paid - :owed " +
+            "where b.group.id = :groupId and b.person.id = :personId")
+    int addToBalance(@Param("groupId") Long groupId,
+                     @Param("personId") Long personId,
+                     @Param("paid") BigDecimal paid,
+                     @Param("owed") BigDecimal owed);
+
+    @Modifying
+    @Query("delete from PersonBalance b where b.group.id = :groupId")
+    int deleteByGroupId(@Param("groupId") Long groupId);
+}
@@ -2,9 +2,31 @@ package com.example.equall.repository;
 
 import com.example.equall.model.Person;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
-    // Later we can add custom queries like: List<Person> findByGroupId(Long groupId);
+
+    // people of one group only (uses the person.group_id index)
+    List<Person> findByGroupId(Long groupId);
+
+    // the given ids restricted to one group, in a single query
+    List<Person> findByGroupIdAndIdIn(Long groupId, Collection<Long> ids);
+
+    @Query("select p.id from Person p where p.group.id = :groupId")
+    List<Long> findIdsByGroupId(@Param("groupId") Long groupId);
+
+    // lightweight id/name view of a group's people, no entities loaded
+    @Query("select p.id as id, p.name as name from Person p where p.group.id = :groupId")
+    List<PersonName> findNamesByGroupId(@Param("groupId") Long groupId);
+
+    interface PersonName {
+        Long getId();
+        String getName();
+    }
 }
@@ -0,0 +1,117 @@
+package com.example.equall.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder for {@link ArchiveWriter}. Reads either from a channel through a refilled buffer
+ * or straight from a buffer holding the whole archive (e.g. a memory-mapped file).
+ * Truncated or malformed input ends in an IllegalArgumentException.
+ */
+final class ArchiveReader {
+
+    private final ReadableByteChannel in;
+    private final ByteBuffer buf;
+    private final List<String> symbols = new ArrayList<>();
+    // bytes taken into the buffer so far
+    private long filled;
+
+    ArchiveReader(ReadableByteChannel in, int bufferSize) {
+        this.in = in;
+        this.buf = ByteBuffer.allocateDirect(bufferSize);
+        this.buf.flip();
+    }
+
+    ArchiveReader(ByteBuffer whole) {
+        this.in = null;
+        this.buf = whole;
+        this.filled = whole.remaining();
+    }
+
+    /** Number of bytes decoded so far. */
+    long position() {
+        return filled - buf.remaining();
+    }
+
+    byte[] bytes(int n) throws IOException {
+        byte[] b = new byte[n];
+        int off = 0;
+        while (off < n) {
+            if (!buf.hasRemaining()) fill();
+            int k = Math.min(buf.remaining(), n - off);
+            buf.get(b, off, k);
+            off += k;
+        }
+        return b;
+    }
+
+    int u8() throws IOException {
+        if (!buf.hasRemaining()) fill();
+        return buf.get() & 0xFF;
+    }
+
+    long varint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = u8();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("Malformed archive: varint too long");
+    }
+
+    int count() throws IOException {
+        long v = varint();
+        if (v > Integer.MAX_VALUE) throw new IllegalArgumentException("Malformed archive: count " + v);
+        return (int) v;
+    }
+
+    long signed() throws IOException {
+        long v = varint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    String string() throws IOException {
+        int len = count();
+        if (len == 0) return null;
+        return new String(bytes(len - 1), StandardCharsets.UTF_8);
+    }
+
+    BigDecimal decimal() throws IOException {
+        long scale = varint();
+        if (scale == 0) return null;
+        scale--;
+        return BigDecimal.valueOf(signed(), (int) ((scale >>> 1) ^ -(scale & 1)));
+    }
+
+    String symbol() throws IOException {
+        int ref = count();
+        if (ref == 0) return null;
+        if (ref == 1) {
+            String s = string();
+            symbols.add(s);
+            return s;
+        }
+        if (ref - 2 >= symbols.size()) throw new IllegalArgumentException("Malformed archive: unknown symbol " + ref);
+        return symbols.get(ref - 2);
+    }
+
+    private void fill() throws IOException {
+        if (in != null) {
+            buf.compact();
+            int n = 0;
+            while (n == 0) n = in.read(buf);
+            buf.flip();
+            if (n > 0) {
+                filled += n;
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Archive is truncated");
+    }
+}
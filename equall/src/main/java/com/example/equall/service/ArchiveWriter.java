@@ -0,0 +1,108 @@
+package com.example.equall.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Primitive encoder of the group archive format (see {@link GroupArchiveService}).
+ * Values are buffered in one direct buffer and written to the channel whenever it fills,
+ * so a file channel gets the bytes without an extra heap copy.
+ * <ul>
+ *   <li>varint: unsigned LEB128, 7 bits per byte</li>
+ *   <li>signed: zigzag varint</li>
+ *   <li>string: varint length + 1 (0 = null), then UTF-8</li>
+ *   <li>decimal: varint zigzag(scale) + 1 (0 = null), then signed unscaled value; trailing zeros stripped</li>
+ *   <li>symbol: 0 = null, 1 = new value follows (string), k + 2 = k-th value defined so far</li>
+ * </ul>
+ */
+final class ArchiveWriter {
+
+    private final WritableByteChannel out;
+    private final ByteBuffer buf;
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private long written;
+
+    ArchiveWriter(WritableByteChannel out, int bufferSize) {
+        this.out = out;
+        this.buf = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void bytes(byte[] b) throws IOException {
+        int off = 0;
+        while (off < b.length) {
+            if (!buf.hasRemaining()) drain();
+            int n = Math.min(buf.remaining(), b.length - off);
+            buf.put(b, off, n);
+            off += n;
+        }
+    }
+
+    void varint(long v) throws IOException {
+        if (buf.remaining() < 10) drain();
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    void signed(long v) throws IOException {
+        varint((v << 1) ^ (v >> 63));
+    }
+
+    void string(String s) throws IOException {
+        if (s == null) {
+            varint(0);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        varint(b.length + 1L);
+        bytes(b);
+    }
+
+    void decimal(BigDecimal d) throws IOException {
+        if (d == null) {
+            varint(0);
+            return;
+        }
+        BigDecimal v = d.signum() == 0 ? BigDecimal.ZERO : d.stripTrailingZeros();
+        BigInteger unscaled = v.unscaledValue();
+        if (unscaled.bitLength() > 63) throw new IllegalArgumentException("Value out of range: " + d);
+        int scale = v.scale();
+        varint((((scale << 1) ^ (scale >> 31)) & 0xFFFFFFFFL) + 1);
+        signed(unscaled.longValue());
+    }
+
+    void symbol(String s) throws IOException {
+        if (s == null) {
+            varint(0);
+            return;
+        }
+        Integer index = symbols.get(s);
+        if (index != null) {
+            varint(index + 2L);
+            return;
+        }
+        symbols.put(s, symbols.size());
+        varint(1);
+        string(s);
+    }
+
+    /** Writes out everything buffered so far; returns the total number of bytes written. */
+    long flush() throws IOException {
+        drain();
+        return written;
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) written += out.write(buf);
+        buf.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.equall.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-person paid/owed totals in cents, kept in primitive arrays indexed through a
+ * small open-addressing {@code long -> int} map. This is the aggregation phase of
+ * settlement without any database or entity access, so it can be fed from any row
+ * source and benchmarked on its own. Not thread-safe.
+ */
+public final class BalanceAccumulator {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final SettlementEngine engine;
+
+    // person id -> slot in the dense arrays below
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+
+    private long[] ids;
+    private long[] paid;
+    private long[] owed;
+    private int size;
+
+    public BalanceAccumulator(SettlementEngine engine, int expectedPeople) {
+        this.engine = engine;
+        int cap = Integer.highestOneBit(Math.max(16, expectedPeople * 2 - 1)) << 1;
+        this.keys = new long[cap];
+        Arrays.fill(keys, EMPTY);
+        this.slots = new int[cap];
+        this.mask = cap - 1;
+        int dense = Math.max(8, expectedPeople);
+        this.ids = new long[dense];
+        this.paid = new long[dense];
+        this.owed = new long[dense];
+    }
+
+    /** Makes sure the person appears in the result even without any activity. */
+    public void touch(long personId) {
+        indexOf(personId);
+    }
+
+    public void addPaid(long personId, long cents) {
+        paid[indexOf(personId)] += cents;
+    }
+
+    public void addOwed(long personId, long cents) {
+        owed[indexOf(personId)] += cents;
+    }
+
+    /** Splits one event between its participants and adds each share to their owed total. */
+    public void addEvent(long amountCents, long[] personIds, long[] weights) {
+        long[] shares = engine.split(amountCents, weights);
+        for (int i = 0; i < shares.length; i++) {
+            owed[indexOf(personIds[i])] += shares[i];
+        }
+    }
+
+    /** Adds all totals of {@code other} into this accumulator. */
+    public void merge(BalanceAccumulator other) {
+        for (int i = 0; i < other.size; i++) {
+            int idx = indexOf(other.ids[i]);
+            paid[idx] += other.paid[i];
+            owed[idx] += other.owed[i];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long idAt(int i) {
+        return ids[i];
+    }
+
+    public long paidAt(int i) {
+        return paid[i];
+    }
+
+    public long owedAt(int i) {
+        return owed[i];
+    }
+
+    private int indexOf(long personId) {
+        int h = mix(personId) & mask;
+        while (true) {
+            long k = keys[h];
+            if (k == personId) return slots[h];
+            if (k == EMPTY) break;
+            h = (h + 1) & mask;
+        }
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            paid = Arrays.copyOf(paid, size * 2);
+            owed = Arrays.copyOf(owed, size * 2);
+        }
+        ids[size] = personId;
+        keys[h] = personId;
+        slots[h] = size;
+        size++;
+        if (size * 2 > keys.length) rehash();
+        return size - 1;
+    }
+
+    private void rehash() {
+        int cap = keys.length * 2;
+        keys = new long[cap];
+        Arrays.fill(keys, EMPTY);
+        slots = new int[cap];
+        mask = cap - 1;
+        for (int i = 0; i < size; i++) {
+            int h = mix(ids[i]) & mask;
+            while (keys[h] != EMPTY) h = (h + 1) & mask;
+            keys[h] = ids[i];
+            slots[h] = i;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.equall.service;
+
+import com.example.equall.model.BalanceSnapshot;
+import com.example.equall.model.JournalEntry;
+import com.example.equall.repository.BalanceSnapshotRepository;
+import com.example.equall.repository.GroupRepository;
+import com.example.equall.repository.JournalEntryRepository;
+import com.example.equall.repository.PersonRepository;
+import com.example.equall.service.SettlementService.PersonSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Append-only journal of balance postings with periodic per-group snapshots.
+ * <p>
+ * {@link BalanceLedgerService} appends one {@link JournalEntry} for every change it makes
+ * to a running balance, so the journal always sums to the ledger. Balances as of any
+ * instant are the latest {@link BalanceSnapshot} taken at or before it plus a GROUP BY
+ * over the postings recorded after the snapshot (the tail), i.e. three queries no matter
+ * how long the history is. Snapshots are written by {@link JournalSnapshotJob}.
+ * <p>
+ * A posting is stamped when its transaction runs but becomes visible when it commits, so a
+ * snapshot as of "now" would leave out transactions still open and the replay after it
+ * would never pick them up. Snapshots are therefore only taken as of now minus
+ * equall.journal.snapshot-lag-seconds, which must exceed the longest write transaction.
+ */
+@Service
+public class BalanceJournalService {
+
+    private final JournalEntryRepository journalRepo;
+    private final BalanceSnapshotRepository snapshotRepo;
+    private final PersonRepository personRepo;
+    private final GroupRepository groupRepo;
+    private final Duration lag;
+
+    public BalanceJournalService(JournalEntryRepository journalRepo,
+                                 BalanceSnapshotRepository snapshotRepo,
+                                 PersonRepository personRepo,
+                                 GroupRepository groupRepo,
+                                 @Value("${equall.journal.snapshot-lag-seconds:60}") long lagSeconds) {
+        this.journalRepo = journalRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.personRepo = personRepo;
+        this.groupRepo = groupRepo;
+        this.lag = Duration.ofSeconds(lagSeconds);
+    }
+
+    /** Balances of a group at one instant, and how they were obtained. */
+    public static class BalancesAsOf {
+        public Long groupId;
+        public Instant asOf;
+        // snapshot the replay started from; null means the whole journal was replayed
+        public Instant snapshotAt;
+        public long replayedEntries;
+        public List<PersonSummary> people;
+
+        public BalancesAsOf(Long groupId, Instant asOf, Instant snapshotAt, long replayedEntries,
+                            List<PersonSummary> people) {
+            this.groupId = groupId;
+            this.asOf = asOf;
+            this.snapshotAt = snapshotAt;
+            this.replayedEntries = replayedEntries;
+            this.people = people;
+        }
+    }
+
+    /** Appends one posting; called inside the writer's transaction. */
+    public void append(Long groupId, Long personId, JournalEntry.Type type, Long eventId,
+                       BigDecimal paid, BigDecimal owed) {
+        JournalEntry entry = new JournalEntry();
+        entry.setGroupId(groupId);
+        entry.setPersonId(personId);
+        entry.setType(type);
+        entry.setEventId(eventId);
+        entry.setPaid(paid);
+        entry.setOwed(owed);
+        entry.setRecordedAt(Instant.now());
+        journalRepo.save(entry);
+    }
+
+    /** Latest snapshot at or before {@code at} plus the tail of the journal up to {@code at}. */
+    @Transactional(readOnly = true)
+    public BalancesAsOf balancesAsOf(Long groupId, Instant at) {
+        return balancesAsOf(groupId, at, true);
+    }
+
+    /**
+     * As above; with {@code useSnapshots == false} the whole journal is replayed
+     * (reference path for tests and the replay benchmark).
+     */
+    @Transactional(readOnly = true)
+    public BalancesAsOf balancesAsOf(Long groupId, Instant at, boolean useSnapshots) {
+        if (!groupRepo.existsById(groupId)) {
+            throw new IllegalArgumentException("Group not found: " + groupId);
+        }
+
+        // person id -> {paid, owed}, in person id order
+        Map<Long, BigDecimal[]> totals = new TreeMap<>();
+        Instant snapshotAt = useSnapshots ? snapshotRepo.findLatestTakenAt(groupId, at) : null;
+        if (snapshotAt != null) {
+            for (BalanceSnapshot s : snapshotRepo.findByGroupIdAndTakenAt(groupId, snapshotAt)) {
+                totals.put(s.getPersonId(), new BigDecimal[]{s.getPaid(), s.getOwed()});
+            }
+        }
+
+        long replayed = 0;
+        Instant after = snapshotAt == null ? Instant.EPOCH : snapshotAt;
+        for (JournalEntryRepository.PersonSum row : journalRepo.sumByPerson(groupId, after, at)) {
+            BigDecimal[] t = totals.computeIfAbsent(row.getPersonId(),
+                    id -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            t[0] = t[0].add(row.getPaid());
+            t[1] = t[1].add(row.getOwed());
+            replayed += row.getEntries();
+        }
+
+        Map<Long, String> names = new HashMap<>();
+        for (PersonRepository.PersonName p : personRepo.findNamesByGroupId(groupId)) {
+            names.put(p.getId(), p.getName());
+        }
+        List<PersonSummary> people = new ArrayList<>(totals.size());
+        for (Map.Entry<Long, BigDecimal[]> e : totals.entrySet()) {
+            BigDecimal paid = e.getValue()[0];
+            BigDecimal owed = e.getValue()[1];
+            people.add(new PersonSummary(e.getKey(), names.get(e.getKey()), paid, owed, paid.subtract(owed)));
+        }
+        return new BalancesAsOf(groupId, at, snapshotAt, replayed, people);
+    }
+
+    /** Latest instant a snapshot may be taken at: every posting stamped before it has committed. */
+    public Instant snapshotCutoff() {
+        return Instant.now().minus(lag);
+    }
+
+    /** Snapshot as of {@link #snapshotCutoff()}. */
+    @Transactional
+    public int snapshot(Long groupId) {
+        return snapshot(groupId, snapshotCutoff());
+    }
+
+    /**
+     * Writes a snapshot of the group's balances as of {@code at}, unless nothing was
+     * posted since the previous snapshot. Returns the number of rows written.
+     * @throws IllegalArgumentException if {@code at} is after {@link #snapshotCutoff()}
+     */
+    @Transactional
+    public int snapshot(Long groupId, Instant at) {
+        if (at.isAfter(snapshotCutoff())) {
+            throw new IllegalArgumentException("Snapshots must be at least " + lag.toSeconds()
+                    + "s old, transactions still open would be missed: " + at);
+        }
+        // a writer like any other: not while the group is being moved to another shard
+        if (groupRepo.lockById(groupId).isEmpty()) {
+            throw new IllegalArgumentException("Group not found: " + groupId);
+        }
+        BalancesAsOf current = balancesAsOf(groupId, at);
+        if (current.snapshotAt != null && current.replayedEntries == 0) return 0;
+
+        List<BalanceSnapshot> rows = new ArrayList<>(current.people.size());
+        for (PersonSummary p : current.people) {
+            rows.add(new BalanceSnapshot(null, groupId, p.personId, at, p.paid, p.owed));
+        }
+        snapshotRepo.saveAll(rows);
+        return rows.size();
+    }
+}
@@ -0,0 +1,560 @@
+package com.example.equall.service;
+
+import com.example.equall.model.*;
+import com.example.equall.repository.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the per-(group, person) running balances in {@link PersonBalance} up to date.
+ * Writers call into this service inside their own transaction; settlement then only
+ * reads the balance rows. {@link #reconcile(Long)} / {@link #rebuild(Long)} recompute
+ * the balances from the raw events to detect and repair drift. Every balance change is
+ * also appended to the {@link BalanceJournalService journal} and published as a
+ * {@link GroupStreamService.Update} for the group's live streams.
+ */
+@Service
+public class BalanceLedgerService {
+
+    private final GroupRepository groupRepo;
+    private final PersonRepository personRepo;
+    private final EventRepository eventRepo;
+    private final EventParticipantRepository participantRepo;
+    private final PersonBalanceRepository balanceRepo;
+    private final SettlementEngine engine;
+    private final BalanceJournalService journal;
+    private final ApplicationEventPublisher events;
+
+    // parallel recompute of large groups: one read-only transaction per event id range
+    private final ExecutorService aggregationExecutor;
+    private final TransactionTemplate readOnlyTx;
+    private final long parallelThreshold;
+    private final int parallelWorkers;
+
+    public BalanceLedgerService(GroupRepository groupRepo,
+                                PersonRepository personRepo,
+                                EventRepository eventRepo,
+                                EventParticipantRepository participantRepo,
+                                PersonBalanceRepository balanceRepo,
+                                SettlementEngine engine,
+                                BalanceJournalService journal,
+                                ApplicationEventPublisher events,
+                                @Qualifier("ledgerAggregationExecutor") ExecutorService aggregationExecutor,
+                                PlatformTransactionManager txManager,
+                                @Value("${equall.ledger.parallel.threshold-events:100000}") long parallelThreshold,
+                                @Value("${equall.ledger.parallel.workers:4}") int parallelWorkers) {
+        this.groupRepo = groupRepo;
+        this.personRepo = personRepo;
+        this.eventRepo = eventRepo;
+        this.participantRepo = participantRepo;
+        this.balanceRepo = balanceRepo;
+        this.engine = engine;
+        this.journal = journal;
+        this.events = events;
+        this.aggregationExecutor = aggregationExecutor;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.parallelThreshold = parallelThreshold;
+        // the executor may have fewer threads than configured, to fit the connection pool
+        this.parallelWorkers = aggregationExecutor instanceof ThreadPoolExecutor pool
+                ? pool.getMaximumPoolSize() : parallelWorkers;
+    }
+
+    /** Paid/owed totals of one person, as stored in the ledger or recomputed from events. */
+    public static class Totals {
+        public BigDecimal paid = BigDecimal.ZERO;
+        public BigDecimal owed = BigDecimal.ZERO;
+        public String name;
+    }
+
+    public static class Discrepancy {
+        public Long personId;
+        public BigDecimal ledgerPaid;
+        public BigDecimal ledgerOwed;
+        public BigDecimal expectedPaid;
+        public BigDecimal expectedOwed;
+
+        public Discrepancy(Long personId, BigDecimal ledgerPaid, BigDecimal ledgerOwed,
+                           BigDecimal expectedPaid, BigDecimal expectedOwed) {
+            this.personId = personId;
+            this.ledgerPaid = ledgerPaid;
+            this.ledgerOwed = ledgerOwed;
+            this.expectedPaid = expectedPaid;
+            this.expectedOwed = expectedOwed;
+        }
+    }
+
+    public static class ReconciliationReport {
+        public Long groupId;
+        public int checked;
+        public List<Discrepancy> discrepancies;
+
+        public ReconciliationReport(Long groupId, int checked, List<Discrepancy> discrepancies) {
+            this.groupId = groupId;
+            this.checked = checked;
+            this.discrepancies = discrepancies;
+        }
+    }
+
+    // -------------------------------
+    // WRITE SIDE (called by controllers)
+    // Writers lock the group row first (GroupRepository.lockById), then change balance rows
+    // in person id order, so writers of one group queue instead of deadlocking
+    // -------------------------------
+
+    /** Creates an empty balance row for a freshly added person. */
+    public void openAccount(GroupEntity group, Person person) {
+        // nobody else can write for a person that is not committed yet
+        journal.append(group.getId(), person.getId(), JournalEntry.Type.PERSON_ADDED, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        insertBalance(group, person, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("personId", person.getId());
+        data.put("name", person.getName());
+        publish(group.getId(), "person-added", data);
+    }
+
+    /** Credits the payer of a newly created event. */
+    public void recordPayment(Event event) {
+        if (event.getPayer() == null || event.getAmount() == null) return;
+        adjust(event.getGroup(), event.getPayer(), event.getAmount(), BigDecimal.ZERO,
+                JournalEntry.Type.EXPENSE_CREATED, event.getId());
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("eventId", event.getId());
+        data.put("title", event.getTitle());
+        data.put("amount", event.getAmount());
+        if (event.getOriginalAmount() != null) {
+            data.put("currency", event.getCurrency());
+            data.put("originalAmount", event.getOriginalAmount());
+        }
+        data.put("payerId", event.getPayer().getId());
+        data.put("payerName", event.getPayer().getName());
+        data.put("deltas", List.of(delta(event.getPayer().getId(), event.getAmount(), BigDecimal.ZERO)));
+        publish(event.getGroup().getId(), "event-created", data);
+    }
+
+    /**
+     * Re-splits an event after its participant list changed: the owed amounts stored on
+     * {@code before} are reversed, the amounts for {@code after} are computed once from the
+     * event's split mode, stored on the {@code after} rows and applied. Call it before the
+     * rows are saved; it validates before changing anything.
+     * @throws IllegalArgumentException if the participants' values do not fit the split mode
+     */
+    public void recordParticipants(Event event, List<EventParticipant> before, List<EventParticipant> after) {
+        long[] oldOwed = storedOwed(event, before);
+        long[] newOwed = owedCents(event, sharesOf(after));
+
+        Map<Long, Long> delta = new TreeMap<>();
+        Map<Long, Person> persons = new HashMap<>();
+        for (int i = 0; i < oldOwed.length; i++) {
+            Person p = before.get(i).getPerson();
+            persons.put(p.getId(), p);
+            delta.merge(p.getId(), -oldOwed[i], Long::sum);
+        }
+        for (int i = 0; i < newOwed.length; i++) {
+            EventParticipant ep = after.get(i);
+            ep.setOwed(SettlementEngine.fromCents(newOwed[i]));
+            persons.put(ep.getPerson().getId(), ep.getPerson());
+            delta.merge(ep.getPerson().getId(), newOwed[i], Long::sum);
+        }
+
+        List<Map<String, Object>> deltas = new ArrayList<>();
+        for (Map.Entry<Long, Long> e : delta.entrySet()) {
+            if (e.getValue() == 0) continue;
+            BigDecimal owed = SettlementEngine.fromCents(e.getValue());
+            adjust(event.getGroup(), persons.get(e.getKey()), BigDecimal.ZERO, owed,
+                    JournalEntry.Type.PARTICIPANTS_CHANGED, event.getId());
+            deltas.add(delta(e.getKey(), BigDecimal.ZERO, owed));
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("eventId", event.getId());
+        data.put("participants", after.stream().map(ep -> ep.getPerson().getId()).toList());
+        data.put("deltas", deltas);
+        publish(event.getGroup().getId(), "participants-changed", data);
+    }
+
+    /**
+     * Applies totals aggregated over many events at once (bulk import): one balance
+     * update per person instead of one per event.
+     */
+    public void recordTotals(GroupEntity group, BalanceAccumulator totals) {
+        List<Map<String, Object>> deltas = new ArrayList<>();
+        Integer[] byId = new Integer[totals.size()];
+        for (int i = 0; i < byId.length; i++) byId[i] = i;
+        Arrays.sort(byId, Comparator.comparingLong(totals::idAt));
+        for (int i : byId) {
+            BigDecimal paid = SettlementEngine.fromCents(totals.paidAt(i));
+            BigDecimal owed = SettlementEngine.fromCents(totals.owedAt(i));
+            if (paid.signum() == 0 && owed.signum() == 0) continue;
+            adjust(group, personRepo.getReferenceById(totals.idAt(i)), paid, owed, JournalEntry.Type.IMPORTED, null);
+            deltas.add(delta(totals.idAt(i), paid, owed));
+        }
+        publish(group.getId(), "imported", Map.of("deltas", deltas));
+    }
+
+    private void adjust(GroupEntity group, Person person, BigDecimal paidDelta, BigDecimal owedDelta,
+                        JournalEntry.Type type, Long eventId) {
+        journal.append(group.getId(), person.getId(), type, eventId, paidDelta, owedDelta);
+        // no row (never opened): the caller holds the group row, so no other write can insert it
+        if (balanceRepo.addToBalance(group.getId(), person.getId(), paidDelta, owedDelta) == 0) {
+            insertBalance(group, person, paidDelta, owedDelta);
+        }
+    }
+
+    private void insertBalance(GroupEntity group, Person person, BigDecimal paid, BigDecimal owed) {
+        PersonBalance b = new PersonBalance();
+        b.setGroup(group);
+        b.setPerson(person);
+        b.setPaid(paid);
+        b.setOwed(owed);
+        b.setNet(paid.subtract(owed));
+        balanceRepo.save(b);
+    }
+
+    private static Map<String, Object> delta(Long personId, BigDecimal paid, BigDecimal owed) {
+        Map<String, Object> d = new LinkedHashMap<>();
+        d.put("personId", personId);
+        d.put("paid", paid);
+        d.put("owed", owed);
+        return d;
+    }
+
+    // delivered to stream subscribers once the surrounding transaction commits
+    private void publish(Long groupId, String type, Map<String, Object> data) {
+        events.publishEvent(new GroupStreamService.Update(groupId, type, data));
+    }
+
+    private static List<BigDecimal> sharesOf(List<EventParticipant> parts) {
+        List<BigDecimal> shares = new ArrayList<>(parts.size());
+        for (EventParticipant ep : parts) shares.add(ep.getShare());
+        return shares;
+    }
+
+    // owed cents as stored on the rows; rows from before split modes are split by weight
+    private long[] storedOwed(Event event, List<EventParticipant> parts) {
+        long[] owed = new long[parts.size()];
+        for (int i = 0; i < owed.length; i++) {
+            if (parts.get(i).getOwed() == null) {
+                return owedCents(SplitMode.SHARES, SettlementEngine.toCents(event.getAmount()), sharesOf(parts));
+            }
+            owed[i] = SettlementEngine.toCents(parts.get(i).getOwed());
+        }
+        return owed;
+    }
+
+    /**
+     * Owed cents of an event's participants in the group's base currency. Exact amounts of a
+     * converted event are in its own currency: they must add up to the original amount and
+     * are then used as weights on the converted amount.
+     * @throws IllegalArgumentException if the values do not fit the split mode
+     */
+    long[] owedCents(Event event, List<BigDecimal> values) {
+        long amountCents = SettlementEngine.toCents(event.getAmount());
+        if (event.getSplitMode() == SplitMode.EXACT && event.getOriginalAmount() != null && !values.isEmpty()) {
+            long[] exact = owedCents(SplitMode.EXACT, SettlementEngine.toCents(event.getOriginalAmount()), values);
+            return engine.split(amountCents, exact);
+        }
+        return owedCents(event.getSplitMode(), amountCents, values);
+    }
+
+    /**
+     * Owed cents for each participant of an event (same order as {@code values}, the
+     * participants' share column) under {@code mode}. EQUAL, SHARES and PERCENT are split by
+     * the configured {@link SettlementEngine} (largest remainder for the cents engine), so
+     * the amounts add up to the event amount; EXACT amounts must already do so. A
+     * {@code null} weight counts as 1, a {@code null} mode as SHARES. Callers must pass
+     * participants in a stable order (by participant id) because the engine may use the
+     * position to place leftover cents.
+     * @throws IllegalArgumentException if the values do not fit the mode
+     */
+    long[] owedCents(SplitMode mode, long amountCents, List<BigDecimal> values) {
+        int n = values.size();
+        if (n == 0) return new long[0];
+
+        switch (mode == null ? SplitMode.SHARES : mode) {
+            case EQUAL: {
+                long[] ones = new long[n];
+                Arrays.fill(ones, 1L);
+                return engine.split(amountCents, ones);
+            }
+            case EXACT: {
+                long[] owed = new long[n];
+                long sum = 0;
+                for (int i = 0; i < n; i++) {
+                    owed[i] = SettlementEngine.toCents(requireNonNegative(values.get(i), "amount"));
+                    sum += owed[i];
+                }
+                if (sum != amountCents) {
+                    throw new IllegalArgumentException("Exact amounts add up to " + SettlementEngine.fromCents(sum)
+                            + ", not the event amount " + SettlementEngine.fromCents(amountCents));
+                }
+                return owed;
+            }
+            case PERCENT: {
+                BigDecimal sum = BigDecimal.ZERO;
+                for (BigDecimal v : values) sum = sum.add(requireNonNegative(v, "percent"));
+                if (sum.compareTo(BigDecimal.valueOf(100)) != 0) {
+                    throw new IllegalArgumentException("Percentages add up to " + sum.toPlainString() + ", not 100");
+                }
+                return engine.split(amountCents, SettlementEngine.weights(values));
+            }
+            default: {
+                for (BigDecimal v : values) {
+                    if (v != null && v.signum() < 0) throw new IllegalArgumentException("Negative share: " + v);
+                }
+                return engine.split(amountCents, SettlementEngine.weights(values));
+            }
+        }
+    }
+
+    private static BigDecimal requireNonNegative(BigDecimal value, String field) {
+        if (value == null) throw new IllegalArgumentException("Missing " + field + " for a participant");
+        if (value.signum() < 0) throw new IllegalArgumentException("Negative " + field + ": " + value);
+        return value;
+    }
+
+    // -------------------------------
+    // RECONCILIATION
+    // -------------------------------
+
+    /**
+     * Recomputes paid/owed per person from the raw events of the group.
+     * Uses a constant number of queries regardless of the number of events: one GROUP BY
+     * for paid totals, one flat projection of all participant rows (ordered by event) for
+     * owed amounts, and the group's people plus any outside payers/participants for names.
+     * Participant rows are streamed and folded into a {@link BalanceAccumulator}: their stored
+     * owed amounts are summed as they are; only rows without one (written before split modes)
+     * are collected per event and split. Memory grows with the number of people and the
+     * largest event, not with the number of events.
+     * <p>
+     * Groups with at least equall.ledger.parallel.threshold-events events are split into
+     * event id ranges that are read and folded on the ledger aggregation workers (see
+     * {@link ParallelAggregation}); the totals are identical to the sequential path. The
+     * workers read in transactions of their own, so this recompute covers the events up to
+     * the highest id seen when it started, paid totals included; later events are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Totals> recompute(Long groupId) {
+        long events = groupRepo.findStatsById(groupId).map(GroupRepository.GroupStats::getEventCount).orElse(0L);
+        return recompute(groupId, parallelWorkers > 1 && events >= parallelThreshold);
+    }
+
+    // runs in the caller's transaction; parallel reads happen in the workers' own transactions
+    Map<Long, Totals> recompute(Long groupId, boolean parallel) {
+        List<PersonRepository.PersonName> people = personRepo.findNamesByGroupId(groupId);
+        BalanceAccumulator acc = new BalanceAccumulator(engine, people.size());
+        Map<Long, String> names = new HashMap<>();
+        for (PersonRepository.PersonName p : people) {
+            acc.touch(p.getId());
+            names.put(p.getId(), p.getName());
+        }
+
+        EventRepository.IdBounds bounds = parallel ? eventRepo.findIdBoundsByGroupId(groupId) : null;
+        List<EventRepository.PaidTotal> paid = bounds == null ? eventRepo.sumPaidByGroupId(groupId)
+                : bounds.getMaxId() == null ? List.of()
+                : eventRepo.sumPaidByGroupIdUpTo(groupId, bounds.getMaxId());
+        for (EventRepository.PaidTotal row : paid) {
+            acc.addPaid(row.getPersonId(), SettlementEngine.toCents(row.getTotal()));
+        }
+
+        // rows arrive grouped by event, so legacy rows can be split once all of an event's rows are in
+        if (parallel) {
+            foldParallel(groupId, bounds, acc, people.size());
+        } else {
+            try (Stream<EventParticipantRepository.ShareRow> rows = participantRepo.streamShareRowsByGroupId(groupId)) {
+                fold(rows, acc);
+            }
+        }
+
+        Map<Long, Totals> totals = new HashMap<>();
+        List<Long> unnamed = new ArrayList<>();
+        for (int i = 0; i < acc.size(); i++) {
+            Totals t = new Totals();
+            t.paid = SettlementEngine.fromCents(acc.paidAt(i));
+            t.owed = SettlementEngine.fromCents(acc.owedAt(i));
+            t.name = names.get(acc.idAt(i));
+            if (t.name == null) unnamed.add(acc.idAt(i));
+            totals.put(acc.idAt(i), t);
+        }
+
+        // people outside the group that paid for or joined one of its events
+        if (!unnamed.isEmpty()) {
+            for (Person p : personRepo.findAllById(unnamed)) {
+                totals.get(p.getId()).name = p.getName();
+            }
+        }
+        return totals;
+    }
+
+    private static void fold(Stream<EventParticipantRepository.ShareRow> rows, BalanceAccumulator acc) {
+        EventFolder folder = new EventFolder(acc);
+        rows.forEach(folder::add);
+        folder.flush();
+    }
+
+    // several id ranges per worker, so a range with denser ids does not hold up the others
+    private void foldParallel(Long groupId, EventRepository.IdBounds bounds, BalanceAccumulator acc,
+                              int expectedPeople) {
+        if (bounds.getMinId() == null) return;
+
+        long min = bounds.getMinId();
+        long max = bounds.getMaxId();
+        int ranges = parallelWorkers * 4;
+        long span = (max - min) / ranges + 1;
+        ParallelAggregation.aggregate(acc, engine, expectedPeople, ranges, aggregationExecutor, (range, into) -> {
+            long from = min + range * span;
+            long to = Math.min(from + span - 1, max);
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<EventParticipantRepository.ShareRow> rows =
+                             participantRepo.streamShareRowsByGroupIdAndEventIdBetween(groupId, from, to)) {
+                    fold(rows, into);
+                }
+            });
+        });
+    }
+
+    /**
+     * Adds stored owed amounts directly; rows without one are collected for the current event
+     * and split by weight when the next event starts.
+     */
+    private static final class EventFolder {
+        private final BalanceAccumulator acc;
+        private long eventId = Long.MIN_VALUE;
+        private long amountCents;
+        private long[] personIds = new long[16];
+        private final List<BigDecimal> shares = new ArrayList<>();
+
+        EventFolder(BalanceAccumulator acc) {
+            this.acc = acc;
+        }
+
+        void add(EventParticipantRepository.ShareRow row) {
+            if (row.getOwed() != null) {
+                acc.addOwed(row.getPersonId(), SettlementEngine.toCents(row.getOwed()));
+                return;
+            }
+            if (row.getEventId() != eventId) {
+                flush();
+                eventId = row.getEventId();
+                amountCents = SettlementEngine.toCents(row.getAmount());
+            }
+            if (shares.size() == personIds.length) personIds = Arrays.copyOf(personIds, personIds.length * 2);
+            personIds[shares.size()] = row.getPersonId();
+            shares.add(row.getShare());
+        }
+
+        void flush() {
+            if (shares.isEmpty()) return;
+            acc.addEvent(amountCents, Arrays.copyOf(personIds, shares.size()), SettlementEngine.weights(shares));
+            shares.clear();
+        }
+    }
+
+    /** Compares the stored ledger with a full recompute; does not modify anything. */
+    @Transactional(readOnly = true)
+    public ReconciliationReport reconcile(Long groupId) {
+        requireGroup(groupId);
+        return compare(groupId, recompute(groupId));
+    }
+
+    private ReconciliationReport compare(Long groupId, Map<Long, Totals> expected) {
+        Map<Long, PersonBalance> stored = balanceRepo.findByGroupIdWithPerson(groupId).stream()
+                .collect(Collectors.toMap(b -> b.getPerson().getId(), b -> b));
+
+        Set<Long> ids = new TreeSet<>(expected.keySet());
+        ids.addAll(stored.keySet());
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        for (Long id : ids) {
+            Totals exp = expected.getOrDefault(id, new Totals());
+            PersonBalance b = stored.get(id);
+            BigDecimal ledgerPaid = b == null ? null : b.getPaid();
+            BigDecimal ledgerOwed = b == null ? null : b.getOwed();
+            if (b == null
+                    || ledgerPaid.compareTo(exp.paid) != 0
+                    || ledgerOwed.compareTo(exp.owed) != 0
+                    || b.getNet().compareTo(exp.paid.subtract(exp.owed)) != 0) {
+                discrepancies.add(new Discrepancy(id, ledgerPaid, ledgerOwed, exp.paid, exp.owed));
+            }
+        }
+        return new ReconciliationReport(groupId, ids.size(), discrepancies);
+    }
+
+    /**
+     * Drops the ledger of a group and rebuilds it from the raw events. The repaired drift
+     * is journaled as corrections, so the journal keeps summing to the ledger. Always
+     * recomputes sequentially, so the events are read in the transaction that writes the ledger.
+     */
+    @Transactional
+    public ReconciliationReport rebuild(Long groupId) {
+        GroupEntity group = lockGroup(groupId);
+        Map<Long, Totals> totals = recompute(groupId, false);
+        ReconciliationReport before = compare(groupId, totals);
+
+        writeLedger(group, totals);
+        for (Discrepancy d : before.discrepancies) {
+            BigDecimal paid = d.expectedPaid.subtract(d.ledgerPaid == null ? BigDecimal.ZERO : d.ledgerPaid);
+            BigDecimal owed = d.expectedOwed.subtract(d.ledgerOwed == null ? BigDecimal.ZERO : d.ledgerOwed);
+            journal.append(groupId, d.personId, JournalEntry.Type.CORRECTION, null, paid, owed);
+        }
+        groupRepo.recountEvents(groupId);
+        if (!before.discrepancies.isEmpty()) publish(groupId, "resync", Map.of());
+        return before;
+    }
+
+    /**
+     * Rebuilds the ledger of a group from its journal (latest snapshot plus the postings
+     * after it) instead of from the events, e.g. after the ledger table was lost.
+     * Returns the number of balance rows written.
+     */
+    @Transactional
+    public int rebuildFromJournal(Long groupId) {
+        GroupEntity group = lockGroup(groupId);
+
+        Map<Long, Totals> totals = new LinkedHashMap<>();
+        for (SettlementService.PersonSummary p : journal.balancesAsOf(groupId, Instant.now()).people) {
+            Totals t = new Totals();
+            t.paid = p.paid;
+            t.owed = p.owed;
+            t.name = p.name;
+            totals.put(p.personId, t);
+        }
+        writeLedger(group, totals);
+        groupRepo.bumpRevision(groupId);
+        publish(groupId, "resync", Map.of());
+        return totals.size();
+    }
+
+    // callers hold the group row
+    private void writeLedger(GroupEntity group, Map<Long, Totals> totals) {
+        balanceRepo.deleteByGroupId(group.getId());
+        for (Map.Entry<Long, Totals> e : new TreeMap<>(totals).entrySet()) {
+            insertBalance(group, personRepo.getReferenceById(e.getKey()), e.getValue().paid, e.getValue().owed);
+        }
+    }
+
+    private GroupEntity lockGroup(Long groupId) {
+        return groupRepo.lockById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+    }
+
+    private GroupEntity requireGroup(Long groupId) {
+        return groupRepo.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.equall.service;
+
+import com.example.equall.service.SettlementService.DetailedResult;
+import com.example.equall.service.SettlementService.Mode;
+import com.example.equall.service.SettlementService.Transaction;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Settles many groups in one call (e.g. the nightly run).
+ * <p>
+ * Groups are fanned out over the shared {@code settlementBatchExecutor}, whose size
+ * (equall.settlement.batch.concurrency) caps how many pooled connections batch settlement
+ * can hold at once, also across concurrent batch requests. Every group runs in its own
+ * read-only transaction through {@link SettlementService}, so a failing group is reported
+ * in its outcome and does not affect the others. Outcomes are handed to the caller in
+ * completion order.
+ */
+@Service
+public class BatchSettlementService {
+
+    private final SettlementService settlementService;
+    private final ShardDirectory shards;
+    private final ExecutorService executor;
+
+    public BatchSettlementService(SettlementService settlementService,
+                                  ShardDirectory shards,
+                                  @Qualifier("settlementBatchExecutor") ExecutorService executor) {
+        this.settlementService = settlementService;
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    /** Result of one group; {@code error} is set instead of the transactions when it failed. */
+    public static class GroupOutcome {
+        public Long groupId;
+        public boolean ok;
+        public Long revision;
+        public String algorithm;
+        public List<Transaction> transactions;
+        public String error;
+        public long elapsedMicros;
+
+        static GroupOutcome ok(Long groupId, DetailedResult d, long elapsedMicros) {
+            GroupOutcome o = new GroupOutcome();
+            o.groupId = groupId;
+            o.ok = true;
+            o.revision = d.revision;
+            o.algorithm = d.algorithm;
+            o.transactions = d.transactions;
+            o.elapsedMicros = elapsedMicros;
+            return o;
+        }
+
+        static GroupOutcome failed(Long groupId, Exception ex, long elapsedMicros) {
+            GroupOutcome o = new GroupOutcome();
+            o.groupId = groupId;
+            o.ok = false;
+            o.error = ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+            o.elapsedMicros = elapsedMicros;
+            return o;
+        }
+    }
+
+    /**
+     * Totals of a batch. {@code sumGroupMillis} is the time the groups took one by one;
+     * compared with {@code wallMillis} it shows how much the fan-out gained.
+     */
+    public static class BatchSummary {
+        public int groups;
+        public int succeeded;
+        public int failed;
+        public int concurrency;
+        public long wallMillis;
+        public long sumGroupMillis;
+        // outcomes in completion order; null when they were streamed to the caller instead
+        public List<GroupOutcome> results;
+    }
+
+    /** Ids of the groups whose settlement may have changed at or after {@code since}. */
+    public List<Long> groupsChangedSince(Instant since) {
+        return shards.groupsUpdatedSince(since);
+    }
+
+    /** Settles all groups and returns every outcome in the summary. */
+    public BatchSummary settle(Collection<Long> groupIds, Mode mode) {
+        List<GroupOutcome> results = new ArrayList<>(groupIds.size());
+        BatchSummary summary = settle(groupIds, mode, results::add);
+        summary.results = results;
+        return summary;
+    }
+
+    /**
+     * Settles all groups, passing each outcome to {@code onResult} (on the calling thread)
+     * as soon as that group is done. Duplicate ids are settled once. If {@code onResult}
+     * throws, groups that have not started yet are cancelled.
+     */
+    public BatchSummary settle(Collection<Long> groupIds, Mode mode, Consumer<GroupOutcome> onResult) {
+        Set<Long> ids = new LinkedHashSet<>(groupIds);
+        BatchSummary summary = new BatchSummary();
+        summary.groups = ids.size();
+        summary.concurrency = executor instanceof ThreadPoolExecutor pool ? pool.getMaximumPoolSize() : -1;
+
+        long started = System.nanoTime();
+        long sumMicros = 0;
+        CompletionService<GroupOutcome> completion = new ExecutorCompletionService<>(executor);
+        List<Future<GroupOutcome>> futures = new ArrayList<>(ids.size());
+        try {
+            for (Long id : ids) {
+                futures.add(completion.submit(() -> settleOne(id, mode)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                GroupOutcome outcome = completion.take().get();
+                if (outcome.ok) summary.succeeded++;
+                else summary.failed++;
+                sumMicros += outcome.elapsedMicros;
+                onResult.accept(outcome);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch settlement interrupted", ex);
+        } catch (ExecutionException ex) {
+            // settleOne catches everything, so this is an Error from a worker
+            throw new IllegalStateException("Batch settlement failed", ex.getCause());
+        } finally {
+            for (Future<GroupOutcome> f : futures) f.cancel(false);
+        }
+
+        summary.wallMillis = (System.nanoTime() - started) / 1_000_000;
+        summary.sumGroupMillis = sumMicros / 1_000;
+        return summary;
+    }
+
+    private GroupOutcome settleOne(Long groupId, Mode mode) {
+        long started = System.nanoTime();
+        try {
+            DetailedResult d = shards.inGroup(groupId, () -> settlementService.settleGroupDetailed(groupId, mode));
+            return GroupOutcome.ok(groupId, d, (System.nanoTime() - started) / 1_000);
+        } catch (Exception ex) {
+            return GroupOutcome.failed(groupId, ex, (System.nanoTime() - started) / 1_000);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.equall.service;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Fixed-point engine working only on {@code long} cents and primitive arrays.
+ * Splits use the largest-remainder method, so shares always add up exactly to the
+ * event amount; leftover cents go to the largest fractional parts, earlier
+ * participants first on ties.
+ */
+public class CentsSettlementEngine implements SettlementEngine {
+
+    @Override
+    public String name() {
+        return "cents";
+    }
+
+    @Override
+    public long[] split(long amountCents, long[] weights) {
+        int n = weights.length;
+        long[] result = new long[n];
+        if (n == 0 || amountCents == 0) return result;
+
+        long total = 0;
+        for (long w : weights) total = Math.addExact(total, w);
+        long[] w = weights;
+        if (total == 0) {
+            // no usable weights: split equally
+            w = new long[n];
+            Arrays.fill(w, 1L);
+            total = n;
+        }
+
+        long amount = Math.abs(amountCents);
+        long[] remainders = new long[n];
+        long assigned = 0;
+        for (int i = 0; i < n; i++) {
+            long q;
+            long r;
+            try {
+                long prod = Math.multiplyExact(amount, w[i]);
+                q = prod / total;
+                r = prod % total;
+            } catch (ArithmeticException overflow) {
+                BigInteger[] qr = BigInteger.valueOf(amount).multiply(BigInteger.valueOf(w[i]))
+                        .divideAndRemainder(BigInteger.valueOf(total));
+                q = qr[0].longValueExact();
+                r = qr[1].longValueExact();
+            }
+            result[i] = q;
+            remainders[i] = r;
+            assigned += q;
+        }
+
+        long leftover = amount - assigned;
+        if (leftover > 0) {
+            int[] order = byRemainderDesc(remainders, total);
+            for (int k = 0; k < leftover; k++) result[order[k]]++;
+        }
+
+        if (amountCents < 0) {
+            for (int i = 0; i < n; i++) result[i] = -result[i];
+        }
+        return result;
+    }
+
+    /** Indices sorted by remainder (descending), then index (ascending). */
+    private static int[] byRemainderDesc(long[] remainders, long total) {
+        int n = remainders.length;
+        int[] order = new int[n];
+        if (total <= Integer.MAX_VALUE) {
+            // remainders fit in 31 bits: pack (remainder, inverted index) and sort primitives
+            long[] packed = new long[n];
+            for (int i = 0; i < n; i++) packed[i] = (remainders[i] << 32) | (Integer.MAX_VALUE - i);
+            Arrays.sort(packed);
+            for (int k = 0; k < n; k++) order[k] = Integer.MAX_VALUE - (int) packed[n - 1 - k];
+            return order;
+        }
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) boxed[i] = i;
+        Arrays.sort(boxed, (a, b) -> {
+            int c = Long.compare(remainders[b], remainders[a]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int k = 0; k < n; k++) order[k] = boxed[k];
+        return order;
+    }
+
+    @Override
+    public Transfers match(long[] ids, long[] balances) {
+        int n = ids.length;
+        long[] open = new long[n];
+        int[] creditors = new int[n];
+        int[] debtors = new int[n];
+        int cn = 0;
+        int dn = 0;
+        for (int i = 0; i < n; i++) {
+            if (balances[i] > 0) {
+                open[i] = balances[i];
+                creditors[cn++] = i;
+            } else if (balances[i] < 0) {
+                open[i] = -balances[i];
+                debtors[dn++] = i;
+            }
+        }
+        for (int k = cn / 2 - 1; k >= 0; k--) siftDown(creditors, k, cn, open, ids);
+        for (int k = dn / 2 - 1; k >= 0; k--) siftDown(debtors, k, dn, open, ids);
+
+        Transfers transfers = new Transfers(cn + dn);
+        while (cn > 0 && dn > 0) {
+            int c = creditors[0];
+            int d = debtors[0];
+            long amount = Math.min(open[c], open[d]);
+            transfers.add(ids[d], ids[c], amount);
+            open[c] -= amount;
+            open[d] -= amount;
+
+            if (open[c] == 0) creditors[0] = creditors[--cn];
+            siftDown(creditors, 0, cn, open, ids);
+            if (open[d] == 0) debtors[0] = debtors[--dn];
+            siftDown(debtors, 0, dn, open, ids);
+        }
+        return transfers;
+    }
+
+    // binary max-heap of indices ordered by open amount, then smaller id first
+    private static void siftDown(int[] heap, int k, int size, long[] open, long[] ids) {
+        if (size == 0) return;
+        int item = heap[k];
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= size) break;
+            if (child + 1 < size && before(heap[child + 1], heap[child], open, ids)) child++;
+            if (!before(heap[child], item, open, ids)) break;
+            heap[k] = heap[child];
+            k = child;
+        }
+        heap[k] = item;
+    }
+
+    private static boolean before(int a, int b, long[] open, long[] ids) {
+        return open[a] > open[b] || (open[a] == open[b] && ids[a] < ids[b]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.equall.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Reference engine: the original BigDecimal arithmetic. Every share is rounded on
+ * its own (HALF_UP), so shares may not add up to the event amount.
+ * Kept for comparison with {@link CentsSettlementEngine}.
+ */
+public class DecimalSettlementEngine implements SettlementEngine {
+
+    @Override
+    public String name() {
+        return "decimal";
+    }
+
+    @Override
+    public long[] split(long amountCents, long[] weights) {
+        long[] result = new long[weights.length];
+        if (weights.length == 0 || amountCents == 0) return result;
+
+        BigDecimal eventAmount = SettlementEngine.fromCents(amountCents);
+        BigDecimal totalShares = BigDecimal.ZERO;
+        for (long w : weights) totalShares = totalShares.add(BigDecimal.valueOf(w));
+
+        if (totalShares.compareTo(BigDecimal.ZERO) == 0) {
+            totalShares = BigDecimal.valueOf(weights.length);
+        }
+
+        for (int i = 0; i < weights.length; i++) {
+            BigDecimal shareAmount = eventAmount.multiply(BigDecimal.valueOf(weights[i]))
+                    .divide(totalShares, 10, RoundingMode.HALF_UP)
+                    .setScale(2, RoundingMode.HALF_UP);
+            result[i] = SettlementEngine.toCents(shareAmount);
+        }
+        return result;
+    }
+
+    @Override
+    public Transfers match(long[] ids, long[] balances) {
+        // Build sorted creditors and debtors (largest amount first, then smallest id)
+        PriorityQueue<Map.Entry<Long, BigDecimal>> creditors = new PriorityQueue<>((a, b) -> {
+            int c = b.getValue().compareTo(a.getValue());
+            return c != 0 ? c : a.getKey().compareTo(b.getKey());
+        });
+        PriorityQueue<Map.Entry<Long, BigDecimal>> debtors = new PriorityQueue<>((a, b) -> {
+            int c = a.getValue().compareTo(b.getValue());
+            return c != 0 ? c : a.getKey().compareTo(b.getKey());
+        });
+
+        for (int i = 0; i < ids.length; i++) {
+            BigDecimal value = SettlementEngine.fromCents(balances[i]);
+            if (value.compareTo(BigDecimal.ZERO) > 0) creditors.add(new AbstractMap.SimpleEntry<>(ids[i], value));
+            else if (value.compareTo(BigDecimal.ZERO) < 0) debtors.add(new AbstractMap.SimpleEntry<>(ids[i], value));
+        }
+
+        Transfers transfers = new Transfers(ids.length);
+
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            var cr = creditors.poll();
+            var db = debtors.poll();
+
+            Long credId = cr.getKey();
+            Long debtId = db.getKey();
+            BigDecimal credAmt = cr.getValue();
+            BigDecimal debtAmt = db.getValue().abs();
+
+            BigDecimal transfer = credAmt.min(debtAmt).setScale(2, RoundingMode.HALF_UP);
+            transfers.add(debtId, credId, SettlementEngine.toCents(transfer));
+
+            BigDecimal newCred = credAmt.subtract(transfer).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal newDebt = debtAmt.subtract(transfer).setScale(2, RoundingMode.HALF_UP);
+
+            if (newCred.compareTo(BigDecimal.ZERO) > 0) creditors.add(new AbstractMap.SimpleEntry<>(credId, newCred));
+            if (newDebt.compareTo(BigDecimal.ZERO) > 0) debtors.add(new AbstractMap.SimpleEntry<>(debtId, newDebt.negate()));
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.equall.service;
+
+import com.example.equall.model.*;
+import com.example.equall.repository.*;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Bulk import of events with their participants into one group.
+ * <p>
+ * Events are read one at a time from a JSON array (or {"events": [...]}) or from an
+ * NDJSON stream, so the request body is never fully materialised. Person ids are
+ * validated against the group's id set loaded once, rows are inserted through JDBC
+ * batching (sequence ids, see hibernate.jdbc.batch_size) and the persistence context
+ * is flushed and cleared every {@link #CHUNK} events. Balances are aggregated in memory
+ * and written once per person at the end. Any invalid event rolls back the whole import.
+ */
+@Service
+public class EventImportService {
+
+    static final int CHUNK = 500;
+
+    private final GroupRepository groupRepo;
+    private final PersonRepository personRepo;
+    private final BalanceLedgerService ledger;
+    private final FxRateService fx;
+    private final SettlementEngine engine;
+    private final ObjectMapper mapper;
+    private final EntityManager em;
+
+    public EventImportService(GroupRepository groupRepo,
+                              PersonRepository personRepo,
+                              BalanceLedgerService ledger,
+                              FxRateService fx,
+                              SettlementEngine engine,
+                              ObjectMapper mapper,
+                              EntityManager em) {
+        this.groupRepo = groupRepo;
+        this.personRepo = personRepo;
+        this.ledger = ledger;
+        this.fx = fx;
+        this.engine = engine;
+        this.mapper = mapper;
+        this.em = em;
+    }
+
+    public static class ImportResult {
+        public int events;
+        public int participants;
+        public long elapsedMillis;
+        public long eventsPerSecond;
+
+        public ImportResult(int events, int participants, long elapsedMillis) {
+            this.events = events;
+            this.participants = participants;
+            this.elapsedMillis = elapsedMillis;
+            this.eventsPerSecond = elapsedMillis == 0 ? events * 1000L : events * 1000L / elapsedMillis;
+        }
+    }
+
+    /**
+     * @param ndjson true for one JSON event object per line, false for a JSON array
+     *               or an object with an "events" array
+     * @throws IllegalArgumentException on a missing group or an invalid event (nothing is imported)
+     */
+    @Transactional
+    public ImportResult importEvents(Long groupId, InputStream body, boolean ndjson) throws IOException {
+        long started = System.nanoTime();
+        // held until commit: other writers of the group wait for the import
+        GroupEntity group = groupRepo.lockById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found"));
+
+        // one query: every person id that may appear as payer or participant
+        Set<Long> members = new HashSet<>(personRepo.findIdsByGroupId(groupId));
+        String base = fx.baseCurrencyOf(group);
+        BalanceAccumulator totals = new BalanceAccumulator(engine, members.size());
+
+        int events = 0;
+        int participants = 0;
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            if (!ndjson) openArray(parser);
+            while (true) {
+                JsonToken t = parser.nextToken();
+                if (t == null || t == JsonToken.END_ARRAY) break;
+                if (t != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Event #" + (events + 1) + " is not an object");
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> item = mapper.readValue(parser, Map.class);
+                participants += importOne(group.getId(), base, item, events + 1, members, totals);
+                events++;
+
+                if (events % CHUNK == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        }
+
+        em.flush();
+        em.clear();
+        if (events > 0) {
+            ledger.recordTotals(groupRepo.getReferenceById(groupId), totals);
+            groupRepo.recordEvents(groupId, events);
+        }
+        return new ImportResult(events, participants, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private int importOne(Long groupId, String base, Map<String, Object> item, int index,
+                          Set<Long> members, BalanceAccumulator totals) {
+        String title = item.getOrDefault("title", "Untitled Event").toString();
+
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(String.valueOf(item.get("amount")));
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Event #" + index + ": invalid amount");
+        }
+
+        Long payerId = ParticipantItems.idOf(item.get("payerId"));
+        if (payerId == null || !members.contains(payerId)) {
+            throw new IllegalArgumentException("Event #" + index + ": payer not in group");
+        }
+
+        SplitMode mode;
+        try {
+            mode = item.get("split") == null ? SplitMode.SHARES : SplitMode.parse(item.get("split"));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Event #" + index + ": " + ex.getMessage());
+        }
+
+        // participants: [1, 2] or [{"personId": 1, "share": 2}, ...] ("amount" / "percent" for
+        // exact / percent splits); duplicates collapse
+        Map<Long, BigDecimal> shares = new LinkedHashMap<>();
+        Object pObj = item.get("participants");
+        if (pObj != null && !(pObj instanceof List)) {
+            throw new IllegalArgumentException("Event #" + index + ": 'participants' must be an array");
+        }
+        for (Object p : pObj == null ? List.of() : (List<?>) pObj) {
+            Long pid = ParticipantItems.personIdOf(p);
+            if (pid == null || !members.contains(pid)) {
+                throw new IllegalArgumentException("Event #" + index + ": participant not in group: " + p);
+            }
+            BigDecimal share;
+            try {
+                share = ParticipantItems.splitValueOf(p, mode);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Event #" + index + ": " + ex.getMessage());
+            }
+            shares.putIfAbsent(pid, share);
+        }
+
+        Event event = new Event();
+        event.setTitle(title);
+        event.setAmount(amount);
+        event.setPayer(personRepo.getReferenceById(payerId));
+        event.setGroup(groupRepo.getReferenceById(groupId));
+        event.setSplitMode(mode);
+
+        // "currency" defaults to the group's base currency; converted once, here
+        long[] owed;
+        try {
+            fx.convert(event, item.get("currency"), base);
+            owed = ledger.owedCents(event, new ArrayList<>(shares.values()));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Event #" + index + ": " + ex.getMessage());
+        }
+        long cents = SettlementEngine.toCents(event.getAmount());
+        int i = 0;
+        for (Map.Entry<Long, BigDecimal> s : shares.entrySet()) {
+            EventParticipant ep = new EventParticipant();
+            ep.setEvent(event);
+            ep.setPerson(personRepo.getReferenceById(s.getKey()));
+            ep.setShare(s.getValue());
+            ep.setOwed(SettlementEngine.fromCents(owed[i]));
+            event.getParticipants().add(ep);
+            totals.addOwed(s.getKey(), owed[i++]);
+        }
+        em.persist(event);
+
+        totals.addPaid(payerId, cents);
+        return shares.size();
+    }
+
+    // accepts a top-level array or {"events": [...]}, leaves the parser on START_ARRAY
+    private static void openArray(JsonParser parser) throws IOException {
+        JsonToken t = parser.nextToken();
+        if (t == JsonToken.START_ARRAY) return;
+        if (t == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("events".equals(field) && value == JsonToken.START_ARRAY) return;
+                parser.skipChildren();
+            }
+        }
+        throw new IllegalArgumentException("Expected a JSON array of events or {\"events\": [...]}");
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.equall.service;
+
+import com.example.equall.model.SplitMode;
+import com.example.equall.repository.EventParticipantRepository;
+import com.example.equall.repository.EventParticipantRepository.ParticipantRow;
+import com.example.equall.repository.EventRepository;
+import com.example.equall.repository.EventRepository.EventRow;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the event listing: keyset pages over (group_id, id), written straight
+ * to the response as JSON while the rows are scrolled from the database.
+ * Memory is bounded by {@link #CHUNK} rows, not by the page size.
+ */
+@Service
+public class EventQueryService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    static final int CHUNK = 200;
+
+    private final EventRepository eventRepo;
+    private final EventParticipantRepository participantRepo;
+    private final ObjectMapper mapper;
+
+    public EventQueryService(EventRepository eventRepo,
+                             EventParticipantRepository participantRepo,
+                             ObjectMapper mapper) {
+        this.eventRepo = eventRepo;
+        this.participantRepo = participantRepo;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Writes {"items": [...], "nextCursor": "id" | null}. Each item has id, title, amount
+     * (base currency), payerId, payerName, currency and originalAmount (converted events only)
+     * and, if requested, participants [{personId, name, share}]
+     * loaded with one query per chunk of events.
+     */
+    @Transactional(readOnly = true)
+    public void writePage(Long groupId, long after, int limit, boolean includeParticipants,
+                          OutputStream out) throws IOException {
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+             Stream<EventRow> rows = eventRepo.streamPage(groupId, after, Limit.of(limit + 1))) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("items");
+
+            List<EventRow> chunk = new ArrayList<>(CHUNK);
+            Long lastId = null;
+            boolean more = false;
+            Iterator<EventRow> it = rows.iterator();
+            int written = 0;
+            while (it.hasNext()) {
+                EventRow row = it.next();
+                if (written + chunk.size() == limit) {
+                    // the extra row only tells us there is a next page
+                    more = true;
+                    break;
+                }
+                chunk.add(row);
+                if (chunk.size() == CHUNK) {
+                    written += writeChunk(gen, chunk, includeParticipants);
+                    lastId = chunk.get(chunk.size() - 1).getId();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                written += writeChunk(gen, chunk, includeParticipants);
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+
+            gen.writeEndArray();
+            if (more) gen.writeStringField("nextCursor", String.valueOf(lastId));
+            else gen.writeNullField("nextCursor");
+            gen.writeEndObject();
+        }
+    }
+
+    private int writeChunk(JsonGenerator gen, List<EventRow> chunk, boolean includeParticipants) throws IOException {
+        Map<Long, List<ParticipantRow>> parts = Map.of();
+        if (includeParticipants) {
+            List<Long> ids = new ArrayList<>(chunk.size());
+            for (EventRow r : chunk) ids.add(r.getId());
+            parts = new HashMap<>();
+            for (ParticipantRow p : participantRepo.findRowsByEventIdIn(ids)) {
+                parts.computeIfAbsent(p.getEventId(), k -> new ArrayList<>()).add(p);
+            }
+        }
+
+        for (EventRow r : chunk) {
+            gen.writeStartObject();
+            gen.writeNumberField("id", r.getId());
+            gen.writeStringField("title", r.getTitle());
+            if (r.getAmount() == null) gen.writeNullField("amount");
+            else gen.writeNumberField("amount", r.getAmount());
+            if (r.getPayerId() == null) gen.writeNullField("payerId");
+            else gen.writeNumberField("payerId", r.getPayerId());
+            gen.writeStringField("payerName", r.getPayerName());
+            gen.writeStringField("split", (r.getSplitMode() == null ? SplitMode.SHARES : r.getSplitMode()).name());
+            gen.writeStringField("currency", r.getCurrency());
+            if (r.getOriginalAmount() != null) gen.writeNumberField("originalAmount", r.getOriginalAmount());
+            if (includeParticipants) {
+                gen.writeArrayFieldStart("participants");
+                for (ParticipantRow p : parts.getOrDefault(r.getId(), List.of())) {
+                    gen.writeStartObject();
+                    gen.writeNumberField("personId", p.getPersonId());
+                    gen.writeStringField("name", p.getPersonName());
+                    gen.writeNumberField("share", p.getShare());
+                    if (p.getOwed() == null) gen.writeNullField("owed");
+                    else gen.writeNumberField("owed", p.getOwed());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        gen.flush();
+        return chunk.size();
+    }
+}
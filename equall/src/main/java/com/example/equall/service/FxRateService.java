@@ -0,0 +1,155 @@
+package com.example.equall.service;
+
+import com.example.equall.model.Event;
+import com.example.equall.model.FxRate;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.repository.FxRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Exchange rates for multi-currency events.
+ * <p>
+ * Rates live in the {@link FxRate} table, each against the reference currency
+ * (equall.fx.reference). The rates file (equall.fx.rates-file, "USD=83.10" per line) is
+ * written into the table at startup and again whenever it changes; the table is then read
+ * into an in-memory map that is swapped as a whole, at startup and every
+ * equall.fx.refresh-ms. Lookups never touch the database.
+ * <p>
+ * Events are converted once, when they are written ({@link #convert}); settlement only
+ * adds up the stored base-currency amounts and never looks at rates.
+ */
+@Service
+public class FxRateService {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
+
+    private final FxRateRepository rateRepo;
+    private final Resource ratesFile;
+    private final String reference;
+    private final String defaultBase;
+
+    // replaced as a whole on refresh, so readers never see a half-loaded table
+    private volatile Map<String, BigDecimal> rates = Map.of();
+
+    // last-modified of the rates file when it was last written to the table
+    private long fileVersion = Long.MIN_VALUE;
+
+    public FxRateService(FxRateRepository rateRepo,
+                         ResourceLoader resourceLoader,
+                         @Value("${equall.fx.rates-file:classpath:fx-rates.properties}") String ratesFile,
+                         @Value("${equall.fx.reference:INR}") String reference,
+                         @Value("${equall.fx.base-currency:INR}") String defaultBase) {
+        this.rateRepo = rateRepo;
+        this.ratesFile = resourceLoader.getResource(ratesFile);
+        this.reference = reference.toUpperCase(Locale.ROOT);
+        this.defaultBase = defaultBase.toUpperCase(Locale.ROOT);
+    }
+
+    // -------------------------------
+    // REFRESH
+    // -------------------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAtStartup() {
+        refresh();
+    }
+
+    /** Re-reads the rates file (if it changed) and the rate table into memory. */
+    @Scheduled(fixedDelayString = "${equall.fx.refresh-ms:3600000}",
+            initialDelayString = "${equall.fx.refresh-ms:3600000}")
+    public synchronized void refresh() {
+        try {
+            importFileIfChanged();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not read FX rates from {}; keeping the stored rates", ratesFile, ex);
+        }
+
+        Map<String, BigDecimal> loaded = new HashMap<>();
+        for (FxRate r : rateRepo.findAll()) loaded.put(r.getCurrency(), r.getRate());
+        loaded.put(reference, BigDecimal.ONE);
+        rates = Map.copyOf(loaded);
+        log.debug("Loaded {} FX rates against {}", loaded.size(), reference);
+    }
+
+    private void importFileIfChanged() throws IOException {
+        if (!ratesFile.exists()) return;
+        long version = ratesFile.lastModified();
+        if (version == fileVersion) return;
+
+        Properties props = new Properties();
+        try (InputStream in = ratesFile.getInputStream()) {
+            props.load(in);
+        }
+        Instant now = Instant.now();
+        List<FxRate> rows = new ArrayList<>();
+        for (String code : props.stringPropertyNames()) {
+            BigDecimal rate = new BigDecimal(props.getProperty(code).trim());
+            if (rate.signum() <= 0) throw new IllegalArgumentException("Rate of " + code + " must be positive");
+            rows.add(new FxRate(code.trim().toUpperCase(Locale.ROOT), rate, now));
+        }
+        rateRepo.saveAll(rows);
+        fileVersion = version;
+        log.info("Imported {} FX rates from {}", rows.size(), ratesFile);
+    }
+
+    // -------------------------------
+    // LOOKUPS
+    // -------------------------------
+
+    /** Base currency of a group, the configured default for groups without one. */
+    public String baseCurrencyOf(GroupEntity group) {
+        return group.getBaseCurrency() == null ? defaultBase : group.getBaseCurrency();
+    }
+
+    /**
+     * Normalised code of a known currency.
+     * @throws IllegalArgumentException if there is no rate for it
+     */
+    public String currencyCode(Object value) {
+        String code = String.valueOf(value).trim().toUpperCase(Locale.ROOT);
+        if (!rates.containsKey(code)) throw new IllegalArgumentException("Unknown currency: " + value);
+        return code;
+    }
+
+    /** Value of one unit of {@code from} in {@code to}. */
+    public BigDecimal rate(String from, String to) {
+        if (from.equals(to)) return BigDecimal.ONE;
+        return rates.get(currencyCode(from)).divide(rates.get(currencyCode(to)), 10, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Sets the currency of an event whose amount is still the entered one. When the currency
+     * (null means {@code base}) differs from {@code base}, the entered amount moves to
+     * originalAmount, the rate to fxRate, and amount becomes the converted value.
+     * @throws IllegalArgumentException on an unknown currency
+     */
+    public void convert(Event event, Object currency, String base) {
+        String code = currency == null ? base : currencyCode(currency);
+        event.setCurrency(code);
+        if (code.equals(base)) {
+            event.setOriginalAmount(null);
+            event.setFxRate(null);
+            return;
+        }
+        BigDecimal rate = rate(code, base);
+        BigDecimal entered = event.getAmount().setScale(2, RoundingMode.HALF_UP);
+        event.setOriginalAmount(entered);
+        event.setFxRate(rate);
+        event.setAmount(entered.multiply(rate).setScale(2, RoundingMode.HALF_UP));
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.equall.service;
+
+import com.example.equall.model.*;
+import com.example.equall.repository.*;
+import com.example.equall.repository.EventParticipantRepository.ArchiveRow;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Binary export/import of a whole group (group, people, events, participants) for backup
+ * and for moving a group between environments.
+ * <p>
+ * Format, version 1 (primitives see {@link ArchiveWriter}):
+ * <pre>
+ * "EQGA" varint(version)
+ * string(group name) symbol(base currency)
+ * varint(people) string(name)...
+ * per event: varint(1) string(title) decimal(amount) person(payer) symbol(split) symbol(currency)
+ *            decimal(original amount) decimal(fx rate) varint(participants) [person decimal(share) decimal(owed)]...
+ * varint(0) varint(events) varint(participants)
+ * </pre>
+ * A person is 0 (none), 1 + string(name) for someone outside the group (first reference
+ * only), or k + 2 for the k-th person so far. Amounts are written as stored: events are not
+ * converted again and owed amounts not re-split on import.
+ * <p>
+ * Export scrolls one flat query of the events joined with their participants and encodes
+ * into a direct buffer that is written to the channel whenever it fills. Import
+ * always creates a new group; rows are inserted through JDBC batching with the persistence
+ * context flushed and cleared every {@link #CHUNK} events, and balances are aggregated in
+ * memory and written once per person, as in {@link EventImportService}.
+ */
+@Service
+public class GroupArchiveService {
+
+    static final int CHUNK = 500;
+    static final int VERSION = 1;
+    private static final byte[] MAGIC = "EQGA".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER = 64 * 1024;
+
+    private final GroupRepository groupRepo;
+    private final PersonRepository personRepo;
+    private final EventParticipantRepository participantRepo;
+    private final BalanceLedgerService ledger;
+    private final FxRateService fx;
+    private final SettlementEngine engine;
+    private final EntityManager em;
+
+    public GroupArchiveService(GroupRepository groupRepo,
+                               PersonRepository personRepo,
+                               EventParticipantRepository participantRepo,
+                               BalanceLedgerService ledger,
+                               FxRateService fx,
+                               SettlementEngine engine,
+                               EntityManager em) {
+        this.groupRepo = groupRepo;
+        this.personRepo = personRepo;
+        this.participantRepo = participantRepo;
+        this.ledger = ledger;
+        this.fx = fx;
+        this.engine = engine;
+        this.em = em;
+    }
+
+    public static class ArchiveResult {
+        public Long groupId;
+        public int people;
+        public int events;
+        public int participants;
+        public long bytes;
+        public long elapsedMillis;
+
+        public ArchiveResult(Long groupId, int people, int events, int participants, long bytes, long started) {
+            this.groupId = groupId;
+            this.people = people;
+            this.events = events;
+            this.participants = participants;
+            this.bytes = bytes;
+            this.elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        }
+    }
+
+    // -------------------------------
+    // EXPORT
+    // -------------------------------
+
+    /** Writes the group's archive to a file (created or truncated). */
+    @Transactional(readOnly = true)
+    public ArchiveResult exportToFile(Long groupId, Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return write(groupId, ch);
+        }
+    }
+
+    /**
+     * Writes the group's archive to {@code out}; the channel is not closed.
+     * @throws IllegalArgumentException if the group does not exist
+     */
+    @Transactional(readOnly = true)
+    public ArchiveResult export(Long groupId, WritableByteChannel out) throws IOException {
+        return write(groupId, out);
+    }
+
+    private ArchiveResult write(Long groupId, WritableByteChannel channel) throws IOException {
+        long started = System.nanoTime();
+        GroupEntity group = groupRepo.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+
+        ArchiveWriter out = new ArchiveWriter(channel, BUFFER);
+        out.bytes(MAGIC);
+        out.varint(VERSION);
+        out.string(group.getName());
+        out.symbol(fx.baseCurrencyOf(group));
+
+        List<PersonRepository.PersonName> people = new ArrayList<>(personRepo.findNamesByGroupId(groupId));
+        people.sort(Comparator.comparing(PersonRepository.PersonName::getId));
+        Map<Long, Integer> personIndex = new HashMap<>();
+        out.varint(people.size());
+        for (PersonRepository.PersonName p : people) {
+            personIndex.put(p.getId(), personIndex.size());
+            out.string(p.getName());
+        }
+
+        int events = 0;
+        int participants = 0;
+        try (Stream<ArchiveRow> rows = participantRepo.streamArchiveRowsByGroupId(groupId)) {
+            // rows of one event are collected until the next event starts (the count goes first)
+            List<ArchiveRow> event = new ArrayList<>();
+            Iterator<ArchiveRow> it = rows.iterator();
+            while (it.hasNext()) {
+                ArchiveRow row = it.next();
+                if (!event.isEmpty() && !event.get(0).eventId().equals(row.eventId())) {
+                    participants += writeEvent(out, event, personIndex);
+                    events++;
+                    event.clear();
+                }
+                event.add(row);
+            }
+            if (!event.isEmpty()) {
+                participants += writeEvent(out, event, personIndex);
+                events++;
+            }
+        }
+        out.varint(0);
+        out.varint(events);
+        out.varint(participants);
+        return new ArchiveResult(groupId, people.size(), events, participants, out.flush(), started);
+    }
+
+    private static int writeEvent(ArchiveWriter out, List<ArchiveRow> rows, Map<Long, Integer> personIndex)
+            throws IOException {
+        ArchiveRow e = rows.get(0);
+        out.varint(1);
+        out.string(e.title());
+        out.decimal(e.amount());
+        writePerson(out, personIndex, e.payerId(), e.payerName());
+        out.symbol(e.splitMode() == null ? null : e.splitMode().name());
+        out.symbol(e.currency());
+        out.decimal(e.originalAmount());
+        out.decimal(e.fxRate());
+
+        int participants = e.personId() == null ? 0 : rows.size();
+        out.varint(participants);
+        for (int i = 0; i < participants; i++) {
+            ArchiveRow p = rows.get(i);
+            writePerson(out, personIndex, p.personId(), p.personName());
+            out.decimal(p.share());
+            out.decimal(p.owed());
+        }
+        return participants;
+    }
+
+    private static void writePerson(ArchiveWriter out, Map<Long, Integer> personIndex, Long id, String name)
+            throws IOException {
+        if (id == null) {
+            out.varint(0);
+            return;
+        }
+        Integer index = personIndex.get(id);
+        if (index != null) {
+            out.varint(index + 2L);
+            return;
+        }
+        // paid for or joined an event without being in the group
+        personIndex.put(id, personIndex.size());
+        out.varint(1);
+        out.string(name);
+    }
+
+    // -------------------------------
+    // IMPORT
+    // -------------------------------
+
+    /** Imports an archive file, reading it through a memory mapping. */
+    @Transactional
+    public ArchiveResult importFile(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) return read(new ArchiveReader(ch, BUFFER));
+            ByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return read(new ArchiveReader(mapped));
+        }
+    }
+
+    /**
+     * Imports an archive into a new group; nothing is written if the archive is invalid.
+     * @throws IllegalArgumentException on a malformed, truncated or unsupported archive
+     */
+    @Transactional
+    public ArchiveResult importArchive(ReadableByteChannel in) throws IOException {
+        return read(new ArchiveReader(in, BUFFER));
+    }
+
+    private ArchiveResult read(ArchiveReader in) throws IOException {
+        long started = System.nanoTime();
+        if (!Arrays.equals(in.bytes(MAGIC.length), MAGIC)) {
+            throw new IllegalArgumentException("Not a group archive");
+        }
+        long version = in.varint();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported archive version " + version);
+
+        GroupEntity group = new GroupEntity();
+        group.setName(in.string());
+        group.setBaseCurrency(fx.currencyCode(in.symbol()));
+        group = groupRepo.save(group);
+        Long groupId = group.getId();
+
+        int peopleCount = in.count();
+        List<Long> people = new ArrayList<>(peopleCount);
+        for (int i = 0; i < peopleCount; i++) people.add(addPerson(group, in.string()));
+        BalanceAccumulator totals = new BalanceAccumulator(engine, peopleCount);
+
+        int events = 0;
+        int participants = 0;
+        while (in.varint() == 1) {
+            Event event = new Event();
+            event.setGroup(groupRepo.getReferenceById(groupId));
+            event.setTitle(in.string());
+            event.setAmount(in.decimal());
+            Long payerId = readPerson(in, people, groupId);
+            if (payerId != null) event.setPayer(personRepo.getReferenceById(payerId));
+            String split = in.symbol();
+            event.setSplitMode(split == null ? null : SplitMode.valueOf(split));
+            event.setCurrency(in.symbol());
+            event.setOriginalAmount(in.decimal());
+            event.setFxRate(in.decimal());
+
+            long amountCents = event.getAmount() == null ? 0 : SettlementEngine.toCents(event.getAmount());
+            int n = in.count();
+            // rows written before split modes have no owed amount and are split by weight
+            List<Long> legacyIds = new ArrayList<>();
+            List<BigDecimal> legacyShares = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                EventParticipant ep = new EventParticipant();
+                ep.setEvent(event);
+                Long personId = readPerson(in, people, groupId);
+                if (personId == null) throw new IllegalArgumentException("Malformed archive: participant without person");
+                ep.setPerson(personRepo.getReferenceById(personId));
+                ep.setShare(in.decimal());
+                ep.setOwed(in.decimal());
+                event.getParticipants().add(ep);
+                if (ep.getOwed() != null) {
+                    totals.addOwed(personId, SettlementEngine.toCents(ep.getOwed()));
+                } else {
+                    legacyIds.add(personId);
+                    legacyShares.add(ep.getShare());
+                }
+            }
+            if (!legacyIds.isEmpty()) {
+                totals.addEvent(amountCents, legacyIds.stream().mapToLong(Long::longValue).toArray(),
+                        SettlementEngine.weights(legacyShares));
+            }
+            if (payerId != null && event.getAmount() != null) totals.addPaid(payerId, amountCents);
+            em.persist(event);
+
+            events++;
+            participants += n;
+            if (events % CHUNK == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        if (in.varint() != events || in.varint() != participants) {
+            throw new IllegalArgumentException("Archive is incomplete");
+        }
+
+        em.flush();
+        em.clear();
+        if (events > 0) {
+            ledger.recordTotals(groupRepo.getReferenceById(groupId), totals);
+            groupRepo.recordEvents(groupId, events);
+        }
+        return new ArchiveResult(groupId, people.size(), events, participants, in.position(), started);
+    }
+
+    private Long readPerson(ArchiveReader in, List<Long> people, Long groupId) throws IOException {
+        int ref = in.count();
+        if (ref == 0) return null;
+        if (ref == 1) {
+            // someone outside the original group becomes a member of the imported one
+            Long id = addPerson(groupRepo.getReferenceById(groupId), in.string());
+            people.add(id);
+            return id;
+        }
+        if (ref - 2 >= people.size()) throw new IllegalArgumentException("Malformed archive: unknown person " + ref);
+        return people.get(ref - 2);
+    }
+
+    private Long addPerson(GroupEntity group, String name) {
+        Person p = new Person();
+        p.setName(name);
+        p.setGroup(group);
+        Person saved = personRepo.save(p);
+        ledger.openAccount(group, saved);
+        return saved.getId();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.equall.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent event streams of group changes (GET /api/groups/{id}/stream).
+ * <p>
+ * {@link BalanceLedgerService} publishes an {@link Update} for every ledger operation; once
+ * the writing transaction has committed it is serialised once and queued for every
+ * subscriber of the group. A fresh settlement plan follows, computed once for all
+ * subscribers (through {@link SettlementCache}) and coalesced while one is pending.
+ * <p>
+ * Each subscriber has a bounded queue drained by the shared stream executor, so a slow
+ * client never blocks the writer or other clients; when its queue overflows it gets a
+ * {@code resync} event and is disconnected (EventSource reconnects and reloads).
+ */
+@Service
+public class GroupStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupStreamService.class);
+
+    /** A committed change of one group; {@code data} is sent as the event's JSON payload. */
+    public static class Update {
+        public final Long groupId;
+        public final String type;
+        public final Map<String, Object> data;
+
+        public Update(Long groupId, String type, Map<String, Object> data) {
+            this.groupId = groupId;
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    private final SettlementService settlementService;
+    private final ShardDirectory shards;
+    private final ObjectMapper mapper;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+    private final int bufferSize;
+
+    private final ConcurrentMap<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // groups with a settlement push queued but not started yet
+    private final Set<Long> settlementPending = ConcurrentHashMap.newKeySet();
+
+    public GroupStreamService(SettlementService settlementService,
+                              ShardDirectory shards,
+                              ObjectMapper mapper,
+                              @Qualifier("groupStreamExecutor") ExecutorService executor,
+                              MeterRegistry registry,
+                              @Value("${equall.stream.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${equall.stream.buffer-size:256}") int bufferSize) {
+        this.settlementService = settlementService;
+        this.shards = shards;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        Gauge.builder("equall.stream.subscribers", subscribers,
+                        m -> m.values().stream().mapToInt(List::size).sum())
+                .description("Open group update streams").register(registry);
+    }
+
+    /**
+     * Opens a stream for the group; the first event is the current settlement.
+     * @throws IllegalArgumentException if the group does not exist
+     */
+    public SseEmitter subscribe(Long groupId) {
+        settlementService.currentRevision(groupId);
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber s = new Subscriber(groupId, emitter);
+        subscribers.computeIfAbsent(groupId, id -> new CopyOnWriteArrayList<>()).add(s);
+        emitter.onCompletion(s::remove);
+        emitter.onTimeout(s::remove);
+        emitter.onError(ex -> s.remove());
+
+        executor.execute(() -> {
+            try {
+                s.offer(frame("settlement", shards.inGroup(groupId, () -> settlementService.settleGroupDetailed(groupId))));
+            } catch (RuntimeException ex) {
+                s.close(ex);
+            }
+        });
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUpdate(Update update) {
+        List<Subscriber> subs = subscribers.get(update.groupId);
+        if (subs == null || subs.isEmpty()) return;
+
+        Set<DataWithMediaType> frame = frame(update.type, update.data);
+        for (Subscriber s : subs) s.offer(frame);
+        scheduleSettlement(update.groupId);
+    }
+
+    // keeps idle connections alive and finds the ones the client has dropped
+    @Scheduled(fixedRateString = "${equall.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (List<Subscriber> subs : subscribers.values()) {
+            for (Subscriber s : subs) s.offer(ping);
+        }
+    }
+
+    // open streams would otherwise hold up graceful shutdown; clients reconnect to another instance
+    @EventListener(ContextClosedEvent.class)
+    public void closeAll() {
+        for (List<Subscriber> subs : subscribers.values()) {
+            for (Subscriber s : subs) s.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private void scheduleSettlement(Long groupId) {
+        // a push that has not started yet will read the latest revision anyway
+        if (!settlementPending.add(groupId)) return;
+        executor.execute(() -> {
+            settlementPending.remove(groupId);
+            List<Subscriber> subs = subscribers.get(groupId);
+            if (subs == null || subs.isEmpty()) return;
+            try {
+                Set<DataWithMediaType> frame = frame("settlement",
+                        shards.inGroup(groupId, () -> settlementService.settleGroupDetailed(groupId)));
+                for (Subscriber s : subs) s.offer(frame);
+            } catch (RuntimeException ex) {
+                log.warn("Settlement push for group {} failed", groupId, ex);
+            }
+        });
+    }
+
+    private Set<DataWithMediaType> frame(String type, Object data) {
+        try {
+            return SseEmitter.event().name(type).data(mapper.writeValueAsString(data)).build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialise " + type + " update", ex);
+        }
+    }
+
+    private final class Subscriber {
+        private final Long groupId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+
+        Subscriber(Long groupId, SseEmitter emitter) {
+            this.groupId = groupId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> frame) {
+            if (overflowed) return;
+            if (!queue.offer(frame)) {
+                // too slow to keep up: drop what is queued and tell the client to reload
+                overflowed = true;
+                queue.clear();
+                queue.offer(SseEmitter.event().name("resync").data("{}").build());
+            }
+            if (draining.compareAndSet(false, true)) executor.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> frame;
+                while ((frame = queue.poll()) != null) emitter.send(frame);
+                if (overflowed) {
+                    emitter.complete();
+                    return;
+                }
+            } catch (IOException | IllegalStateException ex) {
+                close(ex);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) executor.execute(this::drain);
+        }
+
+        void close(Exception ex) {
+            remove();
+            try {
+                emitter.completeWithError(ex);
+            } catch (IllegalStateException ignored) {
+                // already completed
+            }
+        }
+
+        void remove() {
+            List<Subscriber> subs = subscribers.get(groupId);
+            if (subs != null) subs.remove(this);
+        }
+    }
+}
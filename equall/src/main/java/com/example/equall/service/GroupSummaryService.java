@@ -0,0 +1,159 @@
+package com.example.equall.service;
+
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.GroupSummary;
+import com.example.equall.repository.GroupRepository;
+import com.example.equall.repository.GroupSummaryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Materialised group page (GET /api/groups/{id}/summary): members with their balances,
+ * event count, total spend and suggested transfers, stored as ready-to-send JSON in
+ * {@link GroupSummary}.
+ * <p>
+ * Every committed write to a group (the same {@link GroupStreamService.Update}s the live
+ * streams get) schedules a rebuild of its row on the summary executor; bursts of writes
+ * coalesce into one rebuild. Reads take the row only if its revision is the group's current
+ * one, in a single statement, and otherwise rebuild it on the spot, so a summary is never
+ * older than the last commit.
+ */
+@Service
+public class GroupSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupSummaryService.class);
+
+    private final SettlementService settlementService;
+    private final GroupRepository groupRepo;
+    private final GroupSummaryRepository summaryRepo;
+    private final FxRateService fx;
+    private final ShardDirectory shards;
+    private final ObjectMapper mapper;
+    private final ExecutorService executor;
+    private final TransactionTemplate tx;
+    // false: rows are only rebuilt by the first read after a write
+    private final boolean rebuildOnWrite;
+
+    // groups with a rebuild scheduled but not started
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    // stores of one group run one at a time here, so two rebuilds never both insert its row
+    private final Object[] storeLocks = new Object[64];
+
+    public GroupSummaryService(SettlementService settlementService,
+                               GroupRepository groupRepo,
+                               GroupSummaryRepository summaryRepo,
+                               FxRateService fx,
+                               ShardDirectory shards,
+                               ObjectMapper mapper,
+                               @Qualifier("groupSummaryExecutor") ExecutorService executor,
+                               PlatformTransactionManager txManager,
+                               @Value("${equall.summary.rebuild-on-write:true}") boolean rebuildOnWrite) {
+        this.settlementService = settlementService;
+        this.groupRepo = groupRepo;
+        this.summaryRepo = summaryRepo;
+        this.fx = fx;
+        this.shards = shards;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.tx = new TransactionTemplate(txManager);
+        this.rebuildOnWrite = rebuildOnWrite;
+        for (int i = 0; i < storeLocks.length; i++) storeLocks[i] = new Object();
+    }
+
+    /**
+     * Summary JSON of the group: the stored row while it is current, else rebuilt now.
+     * @throws IllegalArgumentException if the group does not exist
+     */
+    public String summaryJson(Long groupId) {
+        return summaryRepo.findCurrentPayload(groupId).orElseGet(() -> rebuild(groupId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUpdate(GroupStreamService.Update update) {
+        if (!rebuildOnWrite) return;
+        Long groupId = update.groupId;
+        // a rebuild that has not started yet will read the latest revision anyway
+        if (!pending.add(groupId)) return;
+        try {
+            executor.execute(() -> {
+                pending.remove(groupId);
+                try {
+                    shards.inGroup(groupId, () -> rebuild(groupId));
+                } catch (RuntimeException ex) {
+                    log.warn("Summary rebuild of group {} failed", groupId, ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // shutting down; the next read rebuilds it
+            pending.remove(groupId);
+        }
+    }
+
+    /** Computes the summary from the ledger (cached settlement) and stores it; returns its JSON. */
+    String rebuild(Long groupId) {
+        SettlementService.DetailedResult d = settlementService.settleGroupDetailed(groupId);
+        GroupEntity group = groupRepo.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+        // read after the settlement: a write in between leaves the row stale, never wrong-but-current
+        long revision = Math.min(d.revision, group.getRevision());
+
+        BigDecimal totalSpend = BigDecimal.ZERO;
+        for (SettlementService.PersonSummary p : d.people) totalSpend = totalSpend.add(p.paid);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("groupId", groupId);
+        summary.put("name", group.getName());
+        summary.put("baseCurrency", fx.baseCurrencyOf(group));
+        summary.put("revision", revision);
+        summary.put("eventCount", group.getEventCount());
+        summary.put("totalSpend", totalSpend);
+        summary.put("members", d.people);
+        summary.put("transfers", d.transactions);
+        String payload;
+        try {
+            payload = mapper.writeValueAsString(summary);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialise summary of group " + groupId, ex);
+        }
+
+        store(groupId, revision, payload);
+        return payload;
+    }
+
+    private void store(Long groupId, long revision, String payload) {
+        Instant now = Instant.now();
+        synchronized (storeLocks[Math.floorMod(Long.hashCode(groupId), storeLocks.length)]) {
+            try {
+                tx.executeWithoutResult(status -> {
+                    // gone, e.g. moved to another shard meanwhile: nothing to store here
+                    if (groupRepo.lockById(groupId).isEmpty()) return;
+                    if (summaryRepo.updateIfNewer(groupId, revision, payload, now) == 0 && !summaryRepo.existsById(groupId)) {
+                        summaryRepo.save(new GroupSummary(groupId, revision, payload, now));
+                    }
+                });
+            } catch (DataIntegrityViolationException ex) {
+                // another instance inserted the row first: keep whichever revision is newer
+                tx.executeWithoutResult(status -> summaryRepo.updateIfNewer(groupId, revision, payload, now));
+            }
+        }
+    }
+}
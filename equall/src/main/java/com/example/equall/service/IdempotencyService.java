@@ -0,0 +1,231 @@
+package com.example.equall.service;
+
+import com.example.equall.model.IdempotencyRecord;
+import com.example.equall.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Responses of POST requests sent with an Idempotency-Key, so a retry gets the first
+ * response back instead of writing again (see the IdempotencyFilter).
+ * <p>
+ * Responses are kept in a bounded LRU map for a fixed time to live. A key is claimed
+ * before the request runs: a duplicate arriving while the first is still being handled is
+ * refused rather than run twice, and a key reused with another request body is rejected.
+ * Claims are held apart from the LRU map, so eviction never releases a running request;
+ * there are at most as many as requests in progress.
+ * With equall.idempotency.persist=true responses are also written to idempotency_record
+ * (on shard 0 when sharded), which outlives evictions and restarts and is shared between
+ * instances; claims stay per instance.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public enum Outcome {
+        /** first use of the key: run the request, then {@link #complete} or {@link #abandon} */
+        PROCEED,
+        /** already answered: send {@link Claim#response} */
+        REPLAY,
+        /** the first request with this key is still running */
+        IN_FLIGHT,
+        /** the key was used with a different request body */
+        MISMATCH
+    }
+
+    public static class StoredResponse {
+        public final int status;
+        public final String contentType;
+        public final String location;
+        public final byte[] body;
+
+        public StoredResponse(int status, String contentType, String location, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.location = location;
+            this.body = body;
+        }
+    }
+
+    public static class Claim {
+        public final Outcome outcome;
+        public final StoredResponse response;
+
+        Claim(Outcome outcome, StoredResponse response) {
+            this.outcome = outcome;
+            this.response = response;
+        }
+    }
+
+    private record Entry(String fingerprint, long createdAt, StoredResponse response) {
+    }
+
+    private static final Claim PROCEED = new Claim(Outcome.PROCEED, null);
+
+    private final IdempotencyRecordRepository records;
+    private final boolean persist;
+    private final long ttlSeconds;
+    private final long ttlNanos;
+
+    private final Counter replayed;
+    private final Counter inFlight;
+    private final Counter mismatched;
+
+    // answered keys; guards claims too
+    private final LinkedHashMap<String, Entry> entries;
+    // keys whose first request is running -> fingerprint of its body
+    private final Map<String, String> claims = new HashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository records,
+                              MeterRegistry registry,
+                              @Value("${equall.idempotency.max-entries:10000}") int maxEntries,
+                              @Value("${equall.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${equall.idempotency.persist:false}") boolean persist) {
+        this.records = records;
+        this.persist = persist;
+        this.ttlSeconds = ttlSeconds;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.replayed = duplicates(registry, "replayed");
+        this.inFlight = duplicates(registry, "in-flight");
+        this.mismatched = duplicates(registry, "mismatch");
+        Gauge.builder("equall.idempotency.entries", this, IdempotencyService::size)
+                .description("Idempotency keys held in memory")
+                .register(registry);
+    }
+
+    private static Counter duplicates(MeterRegistry registry, String outcome) {
+        return Counter.builder("equall.idempotency.duplicates")
+                .description("Requests repeating an Idempotency-Key, answered without running them again")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Claims {@code scope} for a request whose body hashes to {@code fingerprint}, or tells
+     * why it must not run. Only PROCEED claims the key.
+     */
+    public Claim begin(String scope, String fingerprint) {
+        synchronized (entries) {
+            String running = claims.get(scope);
+            if (running != null) return duplicate(running, null, fingerprint);
+            Entry e = live(scope);
+            if (e != null) return duplicate(e.fingerprint(), e.response(), fingerprint);
+            if (!persist) return claim(scope, fingerprint);
+        }
+
+        // a memory miss may have been answered before an eviction, a restart or by another instance
+        Entry stored = records.findById(scope).map(this::toEntry).orElse(null);
+        synchronized (entries) {
+            String running = claims.get(scope);
+            if (running != null) return duplicate(running, null, fingerprint);
+            Entry e = live(scope);
+            if (e == null && stored != null && System.nanoTime() - stored.createdAt() < ttlNanos) {
+                entries.put(scope, stored);
+                e = stored;
+            }
+            return e != null ? duplicate(e.fingerprint(), e.response(), fingerprint) : claim(scope, fingerprint);
+        }
+    }
+
+    /** Stores the response of a claimed request; later requests with the key get it back. */
+    public void complete(String scope, String fingerprint, StoredResponse response) {
+        synchronized (entries) {
+            claims.remove(scope);
+            entries.put(scope, new Entry(fingerprint, System.nanoTime(), response));
+        }
+        if (!persist) return;
+        try {
+            records.save(new IdempotencyRecord(scope, fingerprint, response.status, response.contentType,
+                    response.location, response.body, Instant.now()));
+        } catch (RuntimeException ex) {
+            // the response is already sent; only retries reaching another instance lose it
+            log.warn("Could not store the response for idempotency key {}", scope, ex);
+        }
+    }
+
+    /** Releases a claimed key whose request failed, so a retry runs it again. */
+    public void abandon(String scope) {
+        synchronized (entries) {
+            claims.remove(scope);
+        }
+    }
+
+    /** Drops expired keys from memory and, when persisted, from the table. */
+    @Scheduled(fixedDelayString = "${equall.idempotency.purge-ms:3600000}",
+            initialDelayString = "${equall.idempotency.purge-ms:3600000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.values().removeIf(e -> now - e.createdAt() >= ttlNanos);
+        }
+        if (persist) {
+            int deleted = records.deleteOlderThan(Instant.now().minusSeconds(ttlSeconds));
+            if (deleted > 0) log.debug("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size() + claims.size();
+        }
+    }
+
+    // -------------------------------
+    // helpers (callers hold the lock)
+    // -------------------------------
+
+    private Entry live(String scope) {
+        Entry e = entries.get(scope);
+        if (e != null && System.nanoTime() - e.createdAt() >= ttlNanos) {
+            entries.remove(scope);
+            return null;
+        }
+        return e;
+    }
+
+    private Claim claim(String scope, String fingerprint) {
+        claims.put(scope, fingerprint);
+        return PROCEED;
+    }
+
+    // response is null while the first request is running
+    private Claim duplicate(String firstFingerprint, StoredResponse response, String fingerprint) {
+        if (!Objects.equals(firstFingerprint, fingerprint)) {
+            mismatched.increment();
+            return new Claim(Outcome.MISMATCH, null);
+        }
+        if (response == null) {
+            inFlight.increment();
+            return new Claim(Outcome.IN_FLIGHT, null);
+        }
+        replayed.increment();
+        return new Claim(Outcome.REPLAY, response);
+    }
+
+    // ages the record on the nanoTime clock the memory entries use
+    private Entry toEntry(IdempotencyRecord r) {
+        long age = Duration.between(r.getCreatedAt(), Instant.now()).toNanos();
+        return new Entry(r.getFingerprint(), System.nanoTime() - age,
+                new StoredResponse(r.getStatus(), r.getContentType(), r.getLocation(), r.getBody()));
+    }
+}
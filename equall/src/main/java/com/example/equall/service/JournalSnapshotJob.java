@@ -0,0 +1,55 @@
+package com.example.equall.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Periodically snapshots the balances of every group that changed since the previous run.
+ * Snapshots are taken as of {@link BalanceJournalService#snapshotCutoff()}, one lag in the
+ * past, so postings of transactions that were still open at that point are not skipped:
+ * a transaction must commit within the lag.
+ */
+@Component
+public class JournalSnapshotJob {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalSnapshotJob.class);
+
+    private final BalanceJournalService journal;
+    private final ShardDirectory shards;
+    private final Duration lag;
+
+    // cutoff of the previous run; groups updated before it already have a snapshot
+    private Instant lastCutoff = Instant.EPOCH;
+
+    public JournalSnapshotJob(BalanceJournalService journal,
+                              ShardDirectory shards,
+                              @Value("${equall.journal.snapshot-lag-seconds:60}") long lagSeconds) {
+        this.journal = journal;
+        this.shards = shards;
+        this.lag = Duration.ofSeconds(lagSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${equall.journal.snapshot-interval-ms:300000}",
+            initialDelayString = "${equall.journal.snapshot-interval-ms:300000}")
+    public void snapshotChangedGroups() {
+        Instant cutoff = journal.snapshotCutoff();
+        // updated_at is set when the transaction ran, so look back one lag before the last cutoff
+        int groups = 0;
+        Instant since = lastCutoff.minus(lag);
+        for (Long groupId : shards.groupsUpdatedSince(since)) {
+            try {
+                if (shards.inGroup(groupId, () -> journal.snapshot(groupId, cutoff)) > 0) groups++;
+            } catch (RuntimeException ex) {
+                log.warn("Snapshot of group {} failed", groupId, ex);
+            }
+        }
+        lastCutoff = cutoff;
+        if (groups > 0) log.info("Snapshotted {} groups as of {}", groups, cutoff);
+    }
+}
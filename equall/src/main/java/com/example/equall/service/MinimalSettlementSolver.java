@@ -0,0 +1,148 @@
+package com.example.equall.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds a settlement with the minimum number of transfers.
+ * <p>
+ * With k non-zero balances the optimum is k minus the largest number of disjoint
+ * zero-sum subsets, found by a bitmask DP over all 2^k subsets; each subset is then
+ * settled with the engine's greedy matching, which needs at most (size - 1) transfers.
+ * Above {@code maxExact} balances, or when the DP exceeds its time budget, the plain
+ * greedy matching is used instead. {@link Result#algorithm} tells which one ran.
+ */
+public class MinimalSettlementSolver {
+
+    public static final String EXACT = "exact-bitmask-dp";
+    public static final String FALLBACK_TOO_MANY = "greedy-fallback:too-many-balances";
+    public static final String FALLBACK_TIME_BUDGET = "greedy-fallback:time-budget";
+
+    // the DP holds 9 bytes per subset: 2^22 subsets are ~38 MB per running solve
+    public static final int MAX_EXACT_LIMIT = 22;
+
+    // balances that do not sum to zero get this virtual counterpart; its transfers are dropped
+    private static final long RESIDUE_ID = Long.MIN_VALUE;
+
+    private final SettlementEngine engine;
+    private final int maxExact;
+    private final long budgetNanos;
+
+    public MinimalSettlementSolver(SettlementEngine engine, int maxExact, long budgetMillis) {
+        if (maxExact > MAX_EXACT_LIMIT) {
+            throw new IllegalArgumentException("maxExact must be <= " + MAX_EXACT_LIMIT + ", was " + maxExact);
+        }
+        this.engine = engine;
+        this.maxExact = maxExact;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+    }
+
+    public static class Result {
+        public final SettlementEngine.Transfers transfers;
+        public final String algorithm;
+
+        Result(SettlementEngine.Transfers transfers, String algorithm) {
+            this.transfers = transfers;
+            this.algorithm = algorithm;
+        }
+    }
+
+    public Result solve(long[] ids, long[] balances) {
+        // keep only non-zero balances, plus a residue entry if they do not cancel out
+        int k = 0;
+        long total = 0;
+        for (long b : balances) {
+            if (b != 0) k++;
+            total += b;
+        }
+        if (total != 0) k++;
+
+        if (k > maxExact) {
+            return new Result(engine.match(ids, balances), FALLBACK_TOO_MANY);
+        }
+
+        long[] subIds = new long[k];
+        long[] subBal = new long[k];
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (balances[i] != 0) {
+                subIds[j] = ids[i];
+                subBal[j++] = balances[i];
+            }
+        }
+        if (total != 0) {
+            subIds[j] = RESIDUE_ID;
+            subBal[j] = -total;
+        }
+
+        List<Integer> groups = zeroSumPartition(subBal, System.nanoTime() + budgetNanos);
+        if (groups == null) {
+            return new Result(engine.match(ids, balances), FALLBACK_TIME_BUDGET);
+        }
+
+        SettlementEngine.Transfers out = new SettlementEngine.Transfers(k);
+        for (int mask : groups) {
+            int size = Integer.bitCount(mask);
+            long[] gIds = new long[size];
+            long[] gBal = new long[size];
+            int g = 0;
+            for (int i = 0; i < k; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    gIds[g] = subIds[i];
+                    gBal[g++] = subBal[i];
+                }
+            }
+            SettlementEngine.Transfers part = engine.match(gIds, gBal);
+            for (int t = 0; t < part.size; t++) {
+                if (part.from[t] == RESIDUE_ID || part.to[t] == RESIDUE_ID) continue;
+                out.add(part.from[t], part.to[t], part.cents[t]);
+            }
+        }
+        return new Result(out, EXACT);
+    }
+
+    /**
+     * Splits all k entries into the maximum number of zero-sum subsets (as bitmasks),
+     * or returns {@code null} if the deadline passes first.
+     * dp[mask] = most zero-sum groups that the entries of mask can be cut into, when
+     * they are taken in some order and cut wherever the running sum returns to zero.
+     */
+    private static List<Integer> zeroSumPartition(long[] bal, long deadline) {
+        int k = bal.length;
+        int full = (1 << k) - 1;
+        long[] sum = new long[full + 1];
+        byte[] dp = new byte[full + 1];
+
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & 0xFFF) == 0 && System.nanoTime() > deadline) return null;
+            int low = Integer.numberOfTrailingZeros(mask);
+            sum[mask] = sum[mask & (mask - 1)] + bal[low];
+            int best = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int prev = dp[mask & ~Integer.lowestOneBit(rest)];
+                if (prev > best) best = prev;
+            }
+            dp[mask] = (byte) (best + (sum[mask] == 0 ? 1 : 0));
+        }
+
+        // walk back from the full set; every zero-sum mask reached closes one group
+        List<Integer> groups = new ArrayList<>();
+        int mask = full;
+        int group = 0;
+        while (mask != 0) {
+            int need = dp[mask] - (sum[mask] == 0 ? 1 : 0);
+            int bit = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                bit = Integer.lowestOneBit(rest);
+                if (dp[mask & ~bit] == need) break;
+            }
+            group |= bit;
+            mask &= ~bit;
+            if (mask == 0 || sum[mask] == 0) {
+                groups.add(group);
+                group = 0;
+            }
+        }
+        return groups;
+    }
+}
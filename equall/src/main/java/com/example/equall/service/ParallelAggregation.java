@@ -0,0 +1,52 @@
+package com.example.equall.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Aggregation phase split over ranges of a group's events. Each range is folded into its
+ * own {@link BalanceAccumulator} on the executor, then the partial accumulators are merged
+ * into the base one in range order. Cent totals are plain long additions and every event
+ * is split by exactly one range, so the result (totals and slot order) is identical to
+ * folding the ranges one after another on the calling thread.
+ */
+public final class ParallelAggregation {
+
+    /** Folds the events of one range into {@code into}; called once per range, on a worker thread. */
+    @FunctionalInterface
+    public interface RangeFolder {
+        void fold(int range, BalanceAccumulator into);
+    }
+
+    private ParallelAggregation() {
+    }
+
+    public static void aggregate(BalanceAccumulator base, SettlementEngine engine, int expectedPeople,
+                                 int ranges, ExecutorService executor, RangeFolder folder) {
+        List<Future<BalanceAccumulator>> parts = new ArrayList<>(ranges);
+        try {
+            for (int r = 0; r < ranges; r++) {
+                int range = r;
+                parts.add(executor.submit(ShardDirectory.propagate(() -> {
+                    BalanceAccumulator acc = new BalanceAccumulator(engine, expectedPeople);
+                    folder.fold(range, acc);
+                    return acc;
+                })));
+            }
+            for (Future<BalanceAccumulator> part : parts) {
+                base.merge(part.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Aggregation interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Aggregation failed", ex.getCause());
+        } finally {
+            for (Future<BalanceAccumulator> part : parts) part.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.equall.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of settlement results, keyed by group and mode.
+ * Every entry remembers the group revision it was computed at; a lookup with a newer
+ * revision is a miss, so writers only need to bump the group's revision counter.
+ * Entries also expire after a fixed time to live.
+ * <p>
+ * Bound to Micrometer as equall.settle.cache.gets (result=hit|miss), equall.settle.cache.evictions
+ * and equall.settle.cache.size, next to the equall.settle.phase timers.
+ */
+public class SettlementCache implements MeterBinder {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final LinkedHashMap<Key, Entry> entries;
+
+    public SettlementCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SettlementCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private record Key(Long groupId, SettlementService.Mode mode) {
+    }
+
+    private record Entry(long revision, long createdAt, SettlementService.DetailedResult result) {
+    }
+
+    public static class Stats {
+        public long hits;
+        public long misses;
+        public long evictions;
+        public int size;
+        public int maxEntries;
+
+        Stats(long hits, long misses, long evictions, int size, int maxEntries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * Returns the cached result for this revision, or computes and stores it. Hits are
+     * marked {@code cached} and report no compute time.
+     * Computation happens outside the lock; concurrent misses may compute twice.
+     */
+    public SettlementService.DetailedResult get(Long groupId, SettlementService.Mode mode, long revision,
+                                                Supplier<SettlementService.DetailedResult> compute) {
+        Key key = new Key(groupId, mode);
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && e.revision() == revision && now - e.createdAt() < ttlNanos) {
+                hits.incrementAndGet();
+                return e.result().fromCache();
+            }
+        }
+
+        misses.incrementAndGet();
+        SettlementService.DetailedResult result = compute.get();
+        synchronized (entries) {
+            Entry current = entries.get(key);
+            // never replace a result of a newer revision that another thread stored meanwhile
+            if (current == null || current.revision() <= result.revision) {
+                entries.put(key, new Entry(result.revision, System.nanoTime(), result));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("equall.settle.cache.gets", hits, AtomicLong::get)
+                .description("Settlement cache lookups").tag("result", "hit").register(registry);
+        FunctionCounter.builder("equall.settle.cache.gets", misses, AtomicLong::get)
+                .description("Settlement cache lookups").tag("result", "miss").register(registry);
+        FunctionCounter.builder("equall.settle.cache.evictions", evictions, AtomicLong::get)
+                .description("Settlement results evicted to stay within max-entries").register(registry);
+        Gauge.builder("equall.settle.cache.size", this, SettlementCache::size)
+                .description("Settlement results held in the cache").register(registry);
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), maxEntries);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.equall.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arithmetic core of settlement, working in primitive minor units (cents).
+ * Implementations split event amounts into per-participant shares and match
+ * creditors with debtors. The active engine is chosen by {@code equall.settlement.engine}.
+ */
+public interface SettlementEngine {
+
+    String name();
+
+    /**
+     * Splits {@code amountCents} proportionally to {@code weights}.
+     * Returns one amount per weight, in the same order.
+     */
+    long[] split(long amountCents, long[] weights);
+
+    /**
+     * Greedy matching: repeatedly settles the largest creditor against the largest
+     * debtor (ties broken by the smaller id) until one side is exhausted.
+     * {@code balances[i]} is the net balance of {@code ids[i]}; positive means owed money.
+     */
+    Transfers match(long[] ids, long[] balances);
+
+    /** Result of {@link #match}: {@code size} transfers stored in parallel primitive arrays. */
+    final class Transfers {
+        public int size;
+        public long[] from;
+        public long[] to;
+        public long[] cents;
+
+        public Transfers(int capacity) {
+            int cap = Math.max(capacity, 4);
+            this.from = new long[cap];
+            this.to = new long[cap];
+            this.cents = new long[cap];
+        }
+
+        public void add(long fromId, long toId, long amount) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+                cents = Arrays.copyOf(cents, size * 2);
+            }
+            from[size] = fromId;
+            to[size] = toId;
+            cents[size] = amount;
+            size++;
+        }
+    }
+
+    // -------------------------------
+    // conversions between the decimal API/DB values and engine units
+    // -------------------------------
+
+    static long toCents(BigDecimal amount) {
+        if (amount == null) return 0L;
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Turns share weights into integers with the same ratios by shifting all of them
+     * by the largest scale present. A {@code null} share counts as 1.
+     */
+    static long[] weights(List<BigDecimal> shares) {
+        int scale = 0;
+        for (BigDecimal s : shares) {
+            if (s != null) scale = Math.max(scale, s.stripTrailingZeros().scale());
+        }
+        long[] w = new long[shares.size()];
+        for (int i = 0; i < w.length; i++) {
+            BigDecimal s = shares.get(i) == null ? BigDecimal.ONE : shares.get(i);
+            w[i] = s.movePointRight(scale).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+        return w;
+    }
+}
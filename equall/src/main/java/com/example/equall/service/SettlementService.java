@@ -2,29 +2,85 @@ package com.example.equall.service;
 
 import com.example.equall.model.*;
 import com.example.equall.repository.*;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SettlementService {
 
     private final GroupRepository groupRepo;
-    private final PersonRepository personRepo;
-    private final EventRepository eventRepo;
-    private final EventParticipantRepository participantRepo;
+    private final PersonBalanceRepository balanceRepo;
+    private final SettlementEngine engine;
+    private final MinimalSettlementSolver minimalSolver;
+    private final SettlementCache cache;
+
+    // per-phase timers of a settlement computation (cache misses only)
+    private final Timer loadTimer;
+    private final Timer aggregateTimer;
+    private final Timer matchTimer;
+    // size of the settled groups; the gauges show the most recent one
+    private final DistributionSummary peopleSummary;
+    private final DistributionSummary eventsSummary;
+    private final AtomicLong lastPeople = new AtomicLong();
+    private final AtomicLong lastEvents = new AtomicLong();
 
     public SettlementService(GroupRepository groupRepo,
-                             PersonRepository personRepo,
-                             EventRepository eventRepo,
-                             EventParticipantRepository participantRepo) {
+                             PersonBalanceRepository balanceRepo,
+                             SettlementEngine engine,
+                             MinimalSettlementSolver minimalSolver,
+                             SettlementCache cache,
+                             MeterRegistry registry) {
         this.groupRepo = groupRepo;
-        this.personRepo = personRepo;
-        this.eventRepo = eventRepo;
-        this.participantRepo = participantRepo;
+        this.balanceRepo = balanceRepo;
+        this.engine = engine;
+        this.minimalSolver = minimalSolver;
+        this.cache = cache;
+
+        this.loadTimer = phaseTimer(registry, "load");
+        this.aggregateTimer = phaseTimer(registry, "aggregate");
+        this.matchTimer = phaseTimer(registry, "match");
+        this.peopleSummary = DistributionSummary.builder("equall.settle.group.people")
+                .description("People in a group at settle time").register(registry);
+        this.eventsSummary = DistributionSummary.builder("equall.settle.group.events")
+                .description("Events in a group at settle time").register(registry);
+        Gauge.builder("equall.settle.last.people", lastPeople, AtomicLong::get)
+                .description("People in the most recently settled group").register(registry);
+        Gauge.builder("equall.settle.last.events", lastEvents, AtomicLong::get)
+                .description("Events in the most recently settled group").register(registry);
+    }
+
+    private static Timer phaseTimer(MeterRegistry registry, String phase) {
+        return Timer.builder("equall.settle.phase")
+                .description("Time spent in one phase of a settlement computation")
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    /** How creditors and debtors are matched. */
+    public enum Mode {
+        /** largest creditor against largest debtor; fast, not always the fewest transfers */
+        GREEDY,
+        /** fewest transfers (exact for small groups, greedy fallback otherwise) */
+        MINIMAL;
+
+        public static Mode parse(String value) {
+            if (value == null || value.isBlank()) return GREEDY;
+            try {
+                return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown settlement mode: " + value);
+            }
+        }
     }
 
     public static class Transaction {
@@ -63,10 +119,27 @@ public class SettlementService {
     public static class DetailedResult {
         public List<PersonSummary> people;
         public List<Transaction> transactions;
-
-        public DetailedResult(List<PersonSummary> people, List<Transaction> transactions) {
+        // which matching algorithm produced the transactions, and how long it took
+        public String algorithm;
+        public long computeMicros;
+        // group revision the result was computed at
+        public long revision;
+        // served from the cache: nothing was computed for this response, computeMicros is 0
+        public boolean cached;
+
+        public DetailedResult(List<PersonSummary> people, List<Transaction> transactions,
+                              String algorithm, long computeMicros, long revision) {
             this.people = people;
             this.transactions = transactions;
+            this.algorithm = algorithm;
+            this.computeMicros = computeMicros;
+            this.revision = revision;
+        }
+
+        DetailedResult fromCache() {
+            DetailedResult r = new DetailedResult(people, transactions, algorithm, 0, revision);
+            r.cached = true;
+            return r;
         }
     }
 
@@ -79,123 +152,92 @@ public class SettlementService {
     }
 
     /**
-     * NEW: returns per-person paid/owed/balance + computed transactions
+     * NEW: returns per-person paid/owed/balance + computed transactions.
+     * Reads only the group's ledger rows, so cost depends on the number of people, not events.
      */
     public DetailedResult settleGroupDetailed(Long groupId) {
-        if (groupRepo.findById(groupId).isEmpty()) {
-            throw new IllegalArgumentException("Group not found: " + groupId);
-        }
-
-        // Load people in the group
-        List<Person> people = personRepo.findAll().stream()
-                .filter(p -> p.getGroup() != null && Objects.equals(p.getGroup().getId(), groupId))
-                .collect(Collectors.toList());
-
-        Map<Long, BigDecimal> paid = new HashMap<>();
-        Map<Long, BigDecimal> owed = new HashMap<>();
-        Map<Long, String> idToName = new HashMap<>();
-
-        for (Person p : people) {
-            paid.put(p.getId(), BigDecimal.ZERO);
-            owed.put(p.getId(), BigDecimal.ZERO);
-            idToName.put(p.getId(), p.getName());
-        }
+        return settleGroupDetailed(groupId, Mode.GREEDY);
+    }
 
-        // Load events
-        List<Event> events = eventRepo.findByGroupId(groupId);
+    /**
+     * Current revision of the group; changes whenever its settlement may change.
+     * @throws IllegalArgumentException if the group does not exist
+     */
+    public long currentRevision(Long groupId) {
+        return groupRepo.findRevisionById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+    }
 
-        // Sum paid amounts
-        for (Event e : events) {
-            if (e.getPayer() != null && e.getAmount() != null) {
-                Long payerId = e.getPayer().getId();
-                BigDecimal prev = paid.getOrDefault(payerId, BigDecimal.ZERO);
-                paid.put(payerId, prev.add(e.getAmount()));
-                idToName.putIfAbsent(payerId, e.getPayer().getName());
-            }
-        }
+    /** Served from {@link SettlementCache} while the group's revision is unchanged. */
+    @Transactional(readOnly = true)
+    public DetailedResult settleGroupDetailed(Long groupId, Mode mode) {
+        GroupRepository.GroupStats stats = groupRepo.findStatsById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+        long revision = stats.getRevision();
+        return cache.get(groupId, mode, revision, () -> compute(groupId, mode, revision, stats.getEventCount()));
+    }
 
-        // Sum owed amounts (share of each participant)
-        for (Event e : events) {
-            BigDecimal eventAmount = e.getAmount() == null ? BigDecimal.ZERO : e.getAmount();
-            List<EventParticipant> parts = participantRepo.findByEventId(e.getId());
-            if (parts == null || parts.isEmpty()) continue;
+    private DetailedResult compute(Long groupId, Mode mode, long revision, long eventCount) {
 
-            BigDecimal totalShares = parts.stream()
-                    .map(p -> p.getShare() == null ? BigDecimal.ONE : p.getShare())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Read the running balances maintained by BalanceLedgerService (one row per person)
+        Timer.Sample phase = Timer.start();
+        List<PersonBalance> rows = balanceRepo.findByGroupIdWithPerson(groupId);
+        phase.stop(loadTimer);
 
-            if (totalShares.compareTo(BigDecimal.ZERO) == 0) {
-                totalShares = BigDecimal.valueOf(parts.size());
-            }
+        phase = Timer.start();
+        int n = rows.size();
+        long[] ids = new long[n];
+        long[] paid = new long[n];
+        long[] owed = new long[n];
+        long[] balance = new long[n];
+        Map<Long, String> idToName = new HashMap<>();
 
-            for (EventParticipant ep : parts) {
-                Long pid = ep.getPerson().getId();
-                BigDecimal share = ep.getShare() == null ? BigDecimal.ONE : ep.getShare();
-                BigDecimal shareAmount = BigDecimal.ZERO;
-                if (eventAmount.compareTo(BigDecimal.ZERO) != 0) {
-                    shareAmount = eventAmount.multiply(share)
-                            .divide(totalShares, 10, RoundingMode.HALF_UP)
-                            .setScale(2, RoundingMode.HALF_UP);
-                }
-                owed.put(pid, owed.getOrDefault(pid, BigDecimal.ZERO).add(shareAmount));
-                idToName.putIfAbsent(pid, ep.getPerson().getName());
-            }
+        for (int i = 0; i < n; i++) {
+            PersonBalance b = rows.get(i);
+            ids[i] = b.getPerson().getId();
+            paid[i] = SettlementEngine.toCents(b.getPaid());
+            owed[i] = SettlementEngine.toCents(b.getOwed());
+            balance[i] = paid[i] - owed[i];
+            idToName.put(ids[i], b.getPerson().getName());
         }
-
-        // Compute balances
-        Map<Long, BigDecimal> balance = new HashMap<>();
-        for (Long id : idToName.keySet()) {
-            BigDecimal p = paid.getOrDefault(id, BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
-            BigDecimal o = owed.getOrDefault(id, BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
-            BigDecimal b = p.subtract(o).setScale(2, RoundingMode.HALF_UP);
-            balance.put(id, b);
+        phase.stop(aggregateTimer);
+
+        peopleSummary.record(n);
+        eventsSummary.record(eventCount);
+        lastPeople.set(n);
+        lastEvents.set(eventCount);
+
+        // Match creditors with debtors
+        long started = System.nanoTime();
+        SettlementEngine.Transfers t;
+        String algorithm;
+        if (mode == Mode.MINIMAL) {
+            MinimalSettlementSolver.Result r = minimalSolver.solve(ids, balance);
+            t = r.transfers;
+            algorithm = r.algorithm;
+        } else {
+            t = engine.match(ids, balance);
+            algorithm = "greedy";
         }
-
-        // Build sorted creditors and debtors
-        PriorityQueue<Map.Entry<Long, BigDecimal>> creditors = new PriorityQueue<>(
-                (a, b) -> b.getValue().compareTo(a.getValue())
-        );
-        PriorityQueue<Map.Entry<Long, BigDecimal>> debtors = new PriorityQueue<>(
-                (a, b) -> a.getValue().compareTo(b.getValue())
-        );
-
-        for (Map.Entry<Long, BigDecimal> e : balance.entrySet()) {
-            if (e.getValue().compareTo(BigDecimal.ZERO) > 0) creditors.add(new AbstractMap.SimpleEntry<>(e.getKey(), e.getValue()));
-            else if (e.getValue().compareTo(BigDecimal.ZERO) < 0) debtors.add(new AbstractMap.SimpleEntry<>(e.getKey(), e.getValue()));
+        long computeNanos = System.nanoTime() - started;
+        matchTimer.record(computeNanos, TimeUnit.NANOSECONDS);
+        long computeMicros = computeNanos / 1_000;
+
+        List<Transaction> transactions = new ArrayList<>(t.size);
+        for (int k = 0; k < t.size; k++) {
+            transactions.add(new Transaction(t.from[k], idToName.get(t.from[k]),
+                    t.to[k], idToName.get(t.to[k]), SettlementEngine.fromCents(t.cents[k])));
         }
 
-        List<Transaction> transactions = new ArrayList<>();
-
-        while (!creditors.isEmpty() && !debtors.isEmpty()) {
-            var cr = creditors.poll();
-            var db = debtors.poll();
-
-            Long credId = cr.getKey();
-            Long debtId = db.getKey();
-            BigDecimal credAmt = cr.getValue();
-            BigDecimal debtAmt = db.getValue().abs();
-
-            BigDecimal transfer = credAmt.min(debtAmt).setScale(2, RoundingMode.HALF_UP);
-
-            transactions.add(new Transaction(debtId, idToName.get(debtId),
-                    credId, idToName.get(credId), transfer));
-
-            BigDecimal newCred = credAmt.subtract(transfer).setScale(2, RoundingMode.HALF_UP);
-            BigDecimal newDebt = debtAmt.subtract(transfer).setScale(2, RoundingMode.HALF_UP);
-
-            if (newCred.compareTo(BigDecimal.ZERO) > 0) creditors.add(new AbstractMap.SimpleEntry<>(credId, newCred));
-            if (newDebt.compareTo(BigDecimal.ZERO) > 0) debtors.add(new AbstractMap.SimpleEntry<>(debtId, newDebt.negate()));
+        // build person summaries in deterministic order (rows are sorted by id)
+        List<PersonSummary> summaries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            summaries.add(new PersonSummary(ids[i], idToName.get(ids[i]),
+                    SettlementEngine.fromCents(paid[i]),
+                    SettlementEngine.fromCents(owed[i]),
+                    SettlementEngine.fromCents(balance[i])));
         }
 
-        // build person summaries in deterministic order
-        List<PersonSummary> summaries = idToName.keySet().stream()
-                .sorted()
-                .map(id -> new PersonSummary(id, idToName.get(id),
-                        paid.getOrDefault(id, BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP),
-                        owed.getOrDefault(id, BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP),
-                        balance.getOrDefault(id, BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP)))
-                .collect(Collectors.toList());
-
-        return new DetailedResult(summaries, transactions);
+        return new DetailedResult(summaries, transactions, algorithm, computeMicros, revision);
     }
 }
@@ -0,0 +1,220 @@
+package com.example.equall.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Which shard holds a group, and the shard the current thread works on.
+ * <p>
+ * All rows of a group live on one shard. Every shard generates ids from its own range
+ * ({@code shard << ID_BITS} upwards), so a group's id names the shard it was created on;
+ * groups moved by {@link ShardMigrationService} are listed in the group_shard table on
+ * shard 0 and reloaded every equall.shards.refresh-ms. Work for a group runs inside
+ * {@link #inGroup}, which points the routing DataSource at its shard; requests under
+ * /api/groups/{groupId} get that from the routing interceptor. Outside of it, statements
+ * go to shard 0.
+ * <p>
+ * Without equall.shards.urls there is one shard and all of this is a no-op.
+ */
+@Service
+public class ShardDirectory {
+
+    /** Id bits per shard: shard k generates ids from k << ID_BITS. */
+    public static final int ID_BITS = 40;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+    private final JdbcTemplate directory;
+    private final AtomicLong placements = new AtomicLong();
+
+    // groups not on the shard their id names; replaced, never modified
+    private volatile Map<Long, Integer> relocations = Map.of();
+
+    /** Work run on a shard; may throw a checked exception of its own. */
+    @FunctionalInterface
+    public interface Work<T, X extends Exception> {
+        T run() throws X;
+    }
+
+    public ShardDirectory(DataSource dataSource) {
+        this.shards = dataSource instanceof AbstractRoutingDataSource routing ? shardsOf(routing) : List.of(dataSource);
+        this.directory = new JdbcTemplate(shards.get(0));
+    }
+
+    // the routing DataSource's targets are keyed by shard index
+    private static List<DataSource> shardsOf(AbstractRoutingDataSource routing) {
+        Map<Object, DataSource> targets = routing.getResolvedDataSources();
+        List<DataSource> list = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            DataSource shard = targets.get(i);
+            if (shard == null) throw new IllegalStateException("No DataSource for shard " + i);
+            list.add(shard);
+        }
+        return List.copyOf(list);
+    }
+
+    /** Shard the current thread's statements go to; null means shard 0. */
+    public static Integer currentShard() {
+        return CURRENT.get();
+    }
+
+    /** Wraps a task for another thread so it runs on the caller's shard. */
+    public static Runnable propagate(Runnable task) {
+        Integer shard = CURRENT.get();
+        if (shard == null) return task;
+        return () -> {
+            Integer previous = CURRENT.get();
+            CURRENT.set(shard);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /** Callable variant of {@link #propagate(Runnable)}. */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Integer shard = CURRENT.get();
+        if (shard == null) return task;
+        return () -> {
+            Integer previous = CURRENT.get();
+            CURRENT.set(shard);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public boolean sharded() {
+        return shards.size() > 1;
+    }
+
+    /** Shard holding the group. Ids no shard generates map to shard 0, where they are not found. */
+    public int shardOf(Long groupId) {
+        if (!sharded() || groupId == null) return 0;
+        Integer moved = relocations.get(groupId);
+        if (moved != null) return moved;
+        long home = groupId >>> ID_BITS;
+        return home < shards.size() ? (int) home : 0;
+    }
+
+    /** Shard for the next new group (round robin); run its insert in {@link #onShard}. */
+    public int placeNewGroup() {
+        return (int) Math.floorMod(placements.getAndIncrement(), (long) shards.size());
+    }
+
+    public <T, X extends Exception> T inGroup(Long groupId, Work<T, X> work) throws X {
+        return onShard(shardOf(groupId), work);
+    }
+
+    /**
+     * Runs {@code work} with its statements routed to {@code shard}. The shard is picked when a
+     * transaction (or a non-transactional statement) takes its connection, so every one started
+     * in here goes to {@code shard}; a transaction already running stays where it is. That is why
+     * sharding turns open-in-view off (see ShardingEnvironmentPostProcessor): its request-wide EntityManager
+     * would keep the first statement's connection for the whole request.
+     */
+    public <T, X extends Exception> T onShard(int shard, Work<T, X> work) throws X {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs the query on every shard's own pool and concatenates the rows. Plain JDBC rather than
+     * {@link #onShard} with a repository, which on a request thread would query the first shard
+     * each time (see there).
+     */
+    public <T> List<T> queryEveryShard(String sql, RowMapper<T> rows, Object... args) {
+        List<T> all = new ArrayList<>();
+        for (DataSource shard : shards) {
+            all.addAll(new JdbcTemplate(shard).query(sql, rows, args));
+        }
+        return all;
+    }
+
+    /** Ids of the groups updated at or after {@code since}, from all shards. */
+    public List<Long> groupsUpdatedSince(Instant since) {
+        return queryEveryShard("select id from groups where updated_at >= ? order by id",
+                (rs, i) -> rs.getLong(1), since.atOffset(ZoneOffset.UTC));
+    }
+
+    /** The shard's own pool, bypassing routing (migrations, schema setup). */
+    public DataSource dataSource(int shard) {
+        return shards.get(shard);
+    }
+
+    // -------------------------------
+    // Request threads (ShardRoutingInterceptor)
+    // -------------------------------
+
+    public void enter(Long groupId) {
+        CURRENT.set(shardOf(groupId));
+    }
+
+    public static void leave() {
+        CURRENT.remove();
+    }
+
+    // -------------------------------
+    // Relocated groups (group_shard on shard 0)
+    // -------------------------------
+
+    /** Records that the group now lives on {@code shard}; visible to other instances after their next refresh. */
+    public synchronized void relocate(Long groupId, int shard) {
+        if (shard == groupId >>> ID_BITS) {
+            directory.update("delete from group_shard where group_id = ?", groupId);
+        } else if (directory.update("update group_shard set shard = ? where group_id = ?", shard, groupId) == 0) {
+            directory.update("insert into group_shard (group_id, shard) values (?, ?)", groupId, shard);
+        }
+        Map<Long, Integer> next = new HashMap<>(relocations);
+        if (shard == groupId >>> ID_BITS) next.remove(groupId);
+        else next.put(groupId, shard);
+        relocations = Map.copyOf(next);
+    }
+
+    @Scheduled(fixedDelayString = "${equall.shards.refresh-ms:30000}",
+            initialDelayString = "${equall.shards.refresh-ms:30000}")
+    public void refresh() {
+        if (sharded()) loadRelocations();
+    }
+
+    /** Creates the directory table if needed and reads it; called once at startup. */
+    public synchronized void loadRelocations() {
+        directory.execute("create table if not exists group_shard (group_id bigint primary key, shard int not null)");
+        Map<Long, Integer> loaded = new HashMap<>();
+        directory.query("select group_id, shard from group_shard",
+                rs -> { loaded.put(rs.getLong(1), rs.getInt(2)); });
+        relocations = Map.copyOf(loaded);
+    }
+
+    private static void restore(Integer previous) {
+        if (previous == null) CURRENT.remove();
+        else CURRENT.set(previous);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.equall.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves groups between shards and evens out shards (rebalancing).
+ * <p>
+ * A move copies every row of the group to the target shard with its ids unchanged (ids are
+ * unique across shards), records the group in the directory and deletes the rows from the
+ * source, all while holding the group row locked on the source. Every writer of a group
+ * takes that row before anything else ({@code GroupRepository.lockById}), so a move waits for
+ * running writes, and writes that race a move wait for it and then find the group gone
+ * instead of being lost; other instances route to the new shard after their next directory
+ * refresh, and see the group as missing until then. A move that cannot delete the source
+ * rows is undone: the group stays on the source and the copies are removed.
+ */
+@Service
+public class ShardMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrationService.class);
+
+    private static final int BATCH = 500;
+
+    /** Tables holding a group's rows, parents first, with the condition selecting them. */
+    private record GroupTable(String name, String where) {
+    }
+
+    private static final List<GroupTable> TABLES = List.of(
+            new GroupTable("groups", "id = ?"),
+            new GroupTable("person", "group_id = ?"),
+            new GroupTable("event", "group_id = ?"),
+            new GroupTable("event_participant", "event_id in (select id from event where group_id = ?)"),
+            new GroupTable("person_balance", "group_id = ?"),
+            new GroupTable("balance_snapshot", "group_id = ?"),
+            new GroupTable("ledger_journal", "group_id = ?"),
+            new GroupTable("group_summary", "group_id = ?"));
+
+    private final ShardDirectory shards;
+
+    public ShardMigrationService(ShardDirectory shards) {
+        this.shards = shards;
+    }
+
+    public static class ShardStats {
+        public int shard;
+        public long groups;
+        public long events;
+    }
+
+    public static class MoveResult {
+        public Long groupId;
+        public int fromShard;
+        public int toShard;
+        public long rows;
+        public long elapsedMillis;
+    }
+
+    public static class RebalanceResult {
+        public List<ShardStats> before;
+        public List<MoveResult> moves = new ArrayList<>();
+        public List<ShardStats> after;
+    }
+
+    /** Groups and events stored on each shard. */
+    public List<ShardStats> stats() {
+        List<ShardStats> all = new ArrayList<>();
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            try (Connection c = shards.dataSource(shard).getConnection();
+                 PreparedStatement ps = c.prepareStatement("select count(*), coalesce(sum(event_count), 0) from groups");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                ShardStats s = new ShardStats();
+                s.shard = shard;
+                s.groups = rs.getLong(1);
+                s.events = rs.getLong(2);
+                all.add(s);
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Cannot read shard " + shard, ex);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Moves the group with all its rows to {@code target}; a no-op if it is there already.
+     * @throws IllegalArgumentException if the shard or the group does not exist
+     */
+    public MoveResult move(Long groupId, int target) {
+        if (target < 0 || target >= shards.shardCount()) {
+            throw new IllegalArgumentException("Unknown shard: " + target);
+        }
+        MoveResult result = new MoveResult();
+        result.groupId = groupId;
+        result.fromShard = shards.shardOf(groupId);
+        result.toShard = target;
+        if (result.fromShard == target) return result;
+
+        long started = System.nanoTime();
+        try (Connection src = shards.dataSource(result.fromShard).getConnection();
+             Connection dst = shards.dataSource(target).getConnection()) {
+            src.setAutoCommit(false);
+            dst.setAutoCommit(false);
+            try {
+                lockGroup(src, groupId);
+                for (GroupTable t : TABLES) result.rows += copy(src, dst, t, groupId);
+                dst.commit();
+            } catch (SQLException | RuntimeException ex) {
+                dst.rollback();
+                src.rollback();
+                throw ex;
+            }
+
+            try {
+                shards.relocate(groupId, target);
+            } catch (RuntimeException ex) {
+                // still routed to the source: take the copies back
+                src.rollback();
+                delete(dst, groupId);
+                dst.commit();
+                throw ex;
+            }
+
+            try {
+                delete(src, groupId);
+                src.commit();
+            } catch (SQLException | RuntimeException ex) {
+                // never leave live rows behind a relocated group: route back, then drop the copies
+                src.rollback();
+                try {
+                    shards.relocate(groupId, result.fromShard);
+                    delete(dst, groupId);
+                    dst.commit();
+                } catch (SQLException | RuntimeException undo) {
+                    ex.addSuppressed(undo);
+                    log.error("Group {} could not be moved back to shard {}; it has rows on shards {} and {}",
+                            groupId, result.fromShard, result.fromShard, target, ex);
+                }
+                throw ex;
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Moving group " + groupId + " to shard " + target + " failed", ex);
+        }
+        result.elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Moved group {} from shard {} to shard {} ({} rows, {} ms)",
+                groupId, result.fromShard, target, result.rows, result.elapsedMillis);
+        return result;
+    }
+
+    /**
+     * Moves groups from the fullest to the emptiest shard, smallest groups first, until group
+     * counts differ by at most one or {@code maxMoves} groups have moved.
+     */
+    public RebalanceResult rebalance(int maxMoves) {
+        RebalanceResult result = new RebalanceResult();
+        result.before = stats();
+        long[] groups = new long[result.before.size()];
+        for (ShardStats s : result.before) groups[s.shard] = s.groups;
+
+        while (result.moves.size() < maxMoves) {
+            int from = 0;
+            int to = 0;
+            for (int shard = 1; shard < groups.length; shard++) {
+                if (groups[shard] > groups[from]) from = shard;
+                if (groups[shard] < groups[to]) to = shard;
+            }
+            if (groups[from] - groups[to] <= 1) break;
+            Long groupId = smallestGroup(from);
+            if (groupId == null) break;
+            result.moves.add(move(groupId, to));
+            groups[from]--;
+            groups[to]++;
+        }
+        result.after = stats();
+        return result;
+    }
+
+    // -------------------------------
+    // JDBC helpers
+    // -------------------------------
+
+    private static void lockGroup(Connection src, Long groupId) throws SQLException {
+        try (PreparedStatement ps = src.prepareStatement("select id from groups where id = ? for update")) {
+            ps.setLong(1, groupId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new IllegalArgumentException("Group not found: " + groupId);
+            }
+        }
+    }
+
+    private static long copy(Connection src, Connection dst, GroupTable table, Long groupId) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement select = src.prepareStatement("select * from " + table.name() + " where " + table.where())) {
+            select.setLong(1, groupId);
+            try (ResultSet rs = select.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                StringBuilder names = new StringBuilder();
+                StringBuilder marks = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    if (i > 1) {
+                        names.append(", ");
+                        marks.append(", ");
+                    }
+                    names.append(meta.getColumnName(i));
+                    marks.append('?');
+                }
+                try (PreparedStatement insert = dst.prepareStatement(
+                        "insert into " + table.name() + " (" + names + ") values (" + marks + ")")) {
+                    while (rs.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            switch (meta.getColumnType(i)) {
+                                case Types.CLOB, Types.NCLOB -> insert.setString(i, rs.getString(i));
+                                case Types.BLOB -> insert.setBytes(i, rs.getBytes(i));
+                                default -> insert.setObject(i, rs.getObject(i));
+                            }
+                        }
+                        insert.addBatch();
+                        if (++rows % BATCH == 0) insert.executeBatch();
+                    }
+                    if (rows % BATCH != 0) insert.executeBatch();
+                }
+            }
+        }
+        return rows;
+    }
+
+    // children first
+    private static void delete(Connection c, Long groupId) throws SQLException {
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            GroupTable t = TABLES.get(i);
+            try (PreparedStatement ps = c.prepareStatement("delete from " + t.name() + " where " + t.where())) {
+                ps.setLong(1, groupId);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private Long smallestGroup(int shard) {
+        try (Connection c = shards.dataSource(shard).getConnection();
+             PreparedStatement ps = c.prepareStatement("select id from groups order by event_count, id limit 1");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : null;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Cannot read shard " + shard, ex);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.equall.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// two keys in memory, so the third evicts the first and its retry is answered from the table
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"equall.idempotency.persist=true",
+		"equall.idempotency.max-entries=2",
+		// statement counts are global; no background summary rebuilds while counting
+		"equall.summary.rebuild-on-write=false"
+})
+class IdempotencyFilterTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void retriedEventIsCreatedOnceAndReplayedWithoutStatements() throws Exception {
+		long groupId = json(post("/api/groups", Map.of("name", "retries"), null)).get("id").asLong();
+		long payer = json(post("/api/groups/" + groupId + "/people", Map.of("name", "Ann"), null)).get("id").asLong();
+		Map<String, Object> event = Map.of("title", "taxi", "amount", "20", "payerId", payer);
+		String path = "/api/groups/" + groupId + "/events";
+
+		HttpResponse<String> first = post(path, event, "event-1");
+		double replayedBefore = duplicates("replayed");
+		double statementsBefore = statements();
+		HttpResponse<String> retry = post(path, event, "event-1");
+
+		assertThat(first.statusCode()).isEqualTo(201);
+		assertThat(first.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER)).isEmpty();
+		assertThat(retry.statusCode()).isEqualTo(201);
+		assertThat(retry.body()).isEqualTo(first.body());
+		assertThat(retry.headers().firstValue("Location")).isEqualTo(first.headers().firstValue("Location"));
+		assertThat(retry.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER)).contains("true");
+		assertThat(statements()).isEqualTo(statementsBefore);
+		assertThat(duplicates("replayed")).isEqualTo(replayedBefore + 1);
+		assertThat(json(get(path)).get("items")).hasSize(1);
+
+		// a new key is a new event
+		post(path, event, "event-2");
+		assertThat(json(get(path)).get("items")).hasSize(2);
+	}
+
+	@Test
+	void retriedParticipantsAreReplayedAndReusedKeyWithOtherBodyIsRejected() throws Exception {
+		long groupId = json(post("/api/groups", Map.of("name", "participants"), null)).get("id").asLong();
+		long ann = json(post("/api/groups/" + groupId + "/people", Map.of("name", "Ann"), null)).get("id").asLong();
+		long bob = json(post("/api/groups/" + groupId + "/people", Map.of("name", "Bob"), null)).get("id").asLong();
+		long eventId = json(post("/api/groups/" + groupId + "/events",
+				Map.of("title", "dinner", "amount", "30", "payerId", ann), null)).get("id").asLong();
+		String path = "/api/groups/" + groupId + "/events/" + eventId + "/participants";
+
+		HttpResponse<String> first = post(path, Map.of("participants", List.of(ann, bob)), "split-1");
+		double statementsBefore = statements();
+		HttpResponse<String> retry = post(path, Map.of("participants", List.of(ann, bob)), "split-1");
+		assertThat(statements()).isEqualTo(statementsBefore);
+		assertThat(retry.statusCode()).isEqualTo(first.statusCode()).isEqualTo(200);
+		assertThat(retry.body()).isEqualTo(first.body());
+
+		double mismatchesBefore = duplicates("mismatch");
+		HttpResponse<String> other = post(path, Map.of("participants", List.of(ann)), "split-1");
+		assertThat(other.statusCode()).isEqualTo(422);
+		assertThat(duplicates("mismatch")).isEqualTo(mismatchesBefore + 1);
+	}
+
+	@Test
+	void keyEvictedFromMemoryIsAnsweredFromTheTable() throws Exception {
+		long groupId = json(post("/api/groups", Map.of("name", "evictions"), null)).get("id").asLong();
+		String path = "/api/groups/" + groupId + "/people";
+		HttpResponse<String> first = post(path, Map.of("name", "Ann"), "person-a");
+		post(path, Map.of("name", "Bob"), "person-b");
+		post(path, Map.of("name", "Cid"), "person-c");
+
+		HttpResponse<String> retry = post(path, Map.of("name", "Ann"), "person-a");
+		assertThat(retry.statusCode()).isEqualTo(201);
+		assertThat(retry.body()).isEqualTo(first.body());
+		assertThat(retry.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER)).contains("true");
+		assertThat(json(get("/api/groups/" + groupId)).get("people")).hasSize(3);
+	}
+
+	private double duplicates(String outcome) {
+		return registry.get("equall.idempotency.duplicates").tag("outcome", outcome).counter().count();
+	}
+
+	private double statements() {
+		return registry.get("equall.sql.statements").counter().count();
+	}
+
+	private HttpResponse<String> post(String path, Object body, String key) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+		if (key != null) request.header(IdempotencyFilter.HEADER, key);
+		return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> get(String path) throws Exception {
+		return http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private JsonNode json(HttpResponse<String> response) throws Exception {
+		assertThat(response.statusCode()).as(response.body()).isBetween(200, 299);
+		return mapper.readTree(response.body());
+	}
+}
@@ -0,0 +1,28 @@
+package com.example.equall.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SettlementConfigTests {
+
+	@Test
+	void ledgerWorkersLeaveAConnectionForTheirCaller() {
+		assertThat(ledgerWorkers(4, 10)).isEqualTo(4);
+		assertThat(ledgerWorkers(4, 4)).isEqualTo(3);
+		assertThat(ledgerWorkers(4, 1)).isEqualTo(1);
+	}
+
+	private static int ledgerWorkers(int configured, int poolSize) {
+		try (HikariDataSource pool = new HikariDataSource()) {
+			pool.setMaximumPoolSize(poolSize);
+			ExecutorService executor = new SettlementConfig().ledgerAggregationExecutor(configured, pool);
+			executor.shutdownNow();
+			return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+		}
+	}
+}
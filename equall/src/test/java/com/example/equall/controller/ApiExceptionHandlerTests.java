@@ -0,0 +1,55 @@
+package com.example.equall.controller;
+
+import com.example.equall.service.GroupSummaryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiExceptionHandlerTests {
+
+	@LocalServerPort
+	private int port;
+
+	@MockitoSpyBean
+	private GroupSummaryService summaries;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void clientErrorsKeepTheirStatus() throws Exception {
+		assertThat(send("POST", "/api/groups", "{not json").statusCode()).isEqualTo(400);
+		assertThat(send("GET", "/api/groups/abc", null).statusCode()).isEqualTo(400);
+		assertThat(send("POST", "/api/shards/move", null).statusCode()).isEqualTo(400);
+		assertThat(send("DELETE", "/api/groups", null).statusCode()).isEqualTo(405);
+		assertThat(send("GET", "/api/nothing-here", null).statusCode()).isEqualTo(404);
+	}
+
+	@Test
+	void unexpectedFailureIsA500WithoutTheExceptionMessage() throws Exception {
+		doThrow(new IllegalStateException("jdbc:h2:secret")).when(summaries).summaryJson(anyLong());
+
+		HttpResponse<String> response = send("GET", "/api/groups/1/summary", null);
+
+		assertThat(response.statusCode()).isEqualTo(500);
+		assertThat(response.body()).contains("Internal Server Error").doesNotContain("secret");
+	}
+
+	private HttpResponse<String> send(String method, String path, String body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Content-Type", "application/json")
+				.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,184 @@
+package com.example.equall.controller;
+
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "equall.summary.rebuild-on-write=false")
+class EventControllerTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void addParticipantsReportsAddedDuplicatesAndRejected() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "participants")).getBody();
+		List<Long> people = addPeople(group.getId(), "Ann", "Bob", "Cid");
+		Long stranger = addPeople(groupController.createGroup(Map.of("name", "other")).getBody().getId(), "Eve").get(0);
+		Event e = (Event) eventController.createEvent(group.getId(),
+				Map.of("title", "dinner", "amount", "30", "payerId", people.get(0))).getBody();
+
+		Map<String, Object> first = body(eventController.addParticipants(group.getId(), e.getId(),
+				Map.of("participants", List.of(people.get(0), String.valueOf(people.get(1)), people.get(0)))));
+		assertThat(first.get("added")).isEqualTo(List.of(people.get(0), people.get(1)));
+		assertThat(first.get("duplicates")).isEqualTo(List.of(people.get(0)));
+		assertThat(first.get("rejected")).isEqualTo(List.of());
+
+		Map<String, Object> badShare = Map.of("personId", people.get(2), "share", "two");
+		Map<String, Object> second = body(eventController.addParticipants(group.getId(), e.getId(),
+				Map.of("participants", List.of(
+						people.get(1),
+						"abc",
+						Map.of("personId", stranger),
+						badShare,
+						Map.of("personId", people.get(2), "share", 2)))));
+		assertThat(second.get("added")).isEqualTo(List.of(people.get(2)));
+		assertThat(second.get("duplicates")).isEqualTo(List.of(people.get(1)));
+		assertThat(second.get("rejected")).isEqualTo(List.of(
+				Map.of("value", "abc", "reason", "invalid person id"),
+				Map.of("value", badShare.toString(), "reason", "Invalid share: two"),
+				Map.of("value", String.valueOf(stranger), "reason", "person not in group")));
+	}
+
+	@Test
+	void addParticipantsRejectsBadRequests() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "bad-participants")).getBody();
+		List<Long> people = addPeople(group.getId(), "Ann", "Bob");
+		Event e = (Event) eventController.createEvent(group.getId(),
+				Map.of("title", "rent", "amount", "100", "payerId", people.get(0), "split", "exact")).getBody();
+
+		assertThat(eventController.addParticipants(group.getId(), e.getId(), Map.of()).getStatusCode().value())
+				.isEqualTo(400);
+		assertThat(eventController.addParticipants(group.getId(), e.getId(), Map.of("participants", "1"))
+				.getStatusCode().value()).isEqualTo(400);
+		assertThat(eventController.addParticipants(group.getId(), -1L, Map.of("participants", people))
+				.getStatusCode().value()).isEqualTo(400);
+		// exact amounts that do not add up to the event amount fail the whole request
+		assertThat(eventController.addParticipants(group.getId(), e.getId(), Map.of("participants", List.of(
+				Map.of("personId", people.get(0), "amount", 60),
+				Map.of("personId", people.get(1), "amount", 30)))).getStatusCode().value()).isEqualTo(400);
+		// a missing amount only rejects its item
+		Map<String, Object> partial = body(eventController.addParticipants(group.getId(), e.getId(),
+				Map.of("participants", List.of(people.get(1), Map.of("personId", people.get(0), "amount", 100)))));
+		assertThat(partial.get("added")).isEqualTo(List.of(people.get(0)));
+		assertThat(partial.get("rejected")).isEqualTo(List.of(
+				Map.of("value", String.valueOf(people.get(1)), "reason", "Missing amount for a participant")));
+	}
+
+	@Test
+	void eventPagesFollowTheCursorUntilItIsNull() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "pages")).getBody();
+		GroupEntity other = groupController.createGroup(Map.of("name", "pages-other")).getBody();
+		Long ann = addPeople(group.getId(), "Ann").get(0);
+		Long eve = addPeople(other.getId(), "Eve").get(0);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 450; i++) {
+			ids.add(((Event) eventController.createEvent(group.getId(),
+					Map.of("title", "e" + i, "amount", "1", "payerId", ann)).getBody()).getId());
+			// ids of the other group interleave, but never show up
+			if (i % 3 == 0) eventController.createEvent(other.getId(), Map.of("title", "x", "amount", "1", "payerId", eve));
+		}
+
+		// pages larger than a streaming chunk, the last one short
+		assertThat(allPages(group.getId(), 250)).isEqualTo(List.of(250, 200));
+		// a last page that is exactly full still ends the listing
+		assertThat(allPages(group.getId(), 225)).isEqualTo(List.of(225, 225));
+		assertThat(allPages(group.getId(), 1000)).isEqualTo(List.of(450));
+
+		JsonNode page = page(group.getId(), String.valueOf(ids.get(99)), 2, false);
+		assertThat(page.get("items")).extracting(n -> n.get("id").asLong()).containsExactly(ids.get(100), ids.get(101));
+		assertThat(page.get("nextCursor").asText()).isEqualTo(String.valueOf(ids.get(101)));
+		assertThat(page(group.getId(), String.valueOf(ids.get(449)), 10, false).get("items")).isEmpty();
+	}
+
+	@Test
+	void eventPageIncludesParticipantsOnlyWhenAsked() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "page-participants")).getBody();
+		List<Long> people = addPeople(group.getId(), "Ann", "Bob");
+		Event e = (Event) eventController.createEvent(group.getId(),
+				Map.of("title", "dinner", "amount", "30", "payerId", people.get(0))).getBody();
+		eventController.addParticipants(group.getId(), e.getId(), Map.of("participants",
+				List.of(people.get(0), Map.of("personId", people.get(1), "share", 2))));
+		eventController.createEvent(group.getId(), Map.of("title", "taxi", "amount", "8", "payerId", people.get(1)));
+
+		JsonNode plain = page(group.getId(), null, 10, false).get("items");
+		assertThat(plain).hasSize(2);
+		assertThat(plain.get(0).has("participants")).isFalse();
+		assertThat(plain.get(0).get("payerName").asText()).isEqualTo("Ann");
+
+		JsonNode items = page(group.getId(), null, 10, true).get("items");
+		JsonNode parts = items.get(0).get("participants");
+		assertThat(parts).extracting(p -> p.get("name").asText()).containsExactly("Ann", "Bob");
+		assertThat(parts.get(1).get("share").decimalValue()).isEqualByComparingTo("2");
+		assertThat(parts).extracting(p -> p.get("owed").asDouble()).containsExactly(10.0, 20.0);
+		assertThat(items.get(1).get("participants")).isEmpty();
+	}
+
+	@Test
+	void eventPageRejectsBadParameters() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "page-params")).getBody();
+
+		assertThat(eventController.getEventsForGroup(group.getId(), null, 0, false).getStatusCode().value()).isEqualTo(400);
+		assertThat(eventController.getEventsForGroup(group.getId(), null, 1001, false).getStatusCode().value()).isEqualTo(400);
+		assertThat(eventController.getEventsForGroup(group.getId(), "abc", 10, false).getStatusCode().value()).isEqualTo(400);
+		assertThat(eventController.getEventsForGroup(-1L, null, 10, false).getStatusCode().value()).isEqualTo(404);
+	}
+
+	// sizes of all pages, checking that together they list every event once, in id order
+	private List<Integer> allPages(Long groupId, int limit) throws Exception {
+		List<Integer> sizes = new ArrayList<>();
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			JsonNode page = page(groupId, cursor, limit, false);
+			sizes.add(page.get("items").size());
+			page.get("items").forEach(n -> seen.add(n.get("id").asLong()));
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+		} while (cursor != null);
+		assertThat(seen).isSorted().doesNotHaveDuplicates();
+		return sizes;
+	}
+
+	private JsonNode page(Long groupId, String after, int limit, boolean includeParticipants) throws Exception {
+		ResponseEntity<StreamingResponseBody> response = eventController.getEventsForGroup(groupId, after, limit, includeParticipants);
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		response.getBody().writeTo(out);
+		return mapper.readTree(out.toString(StandardCharsets.UTF_8));
+	}
+
+	private List<Long> addPeople(Long groupId, String... names) {
+		List<Long> ids = new ArrayList<>();
+		for (String name : names) {
+			ids.add(((Person) groupController.addPerson(groupId, Map.of("name", name)).getBody()).getId());
+		}
+		return ids;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> body(ResponseEntity<?> response) {
+		assertThat(response.getStatusCode().value()).as(String.valueOf(response.getBody())).isEqualTo(200);
+		return (Map<String, Object>) response.getBody();
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.equall.controller;
+
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.repository.GroupRepository;
+import com.example.equall.repository.PersonRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		// statistics are global; no background summary rebuilds while counting statements
+		"equall.summary.rebuild-on-write=false"
+})
+class GroupControllerTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private GroupRepository groupRepo;
+
+	@Autowired
+	private PersonRepository personRepo;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Test
+	void groupPageStaysFlatAsUnrelatedGroupsAreAdded() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "scaling")).getBody();
+		for (String name : List.of("Ann", "Bob", "Cid")) {
+			groupController.addPerson(group.getId(), Map.of("name", name));
+		}
+
+		long loadsBefore = entityLoadsFor(() -> groupController.getGroupWithPeople(group.getId()));
+		long nanosBefore = medianNanos(() -> groupController.getGroupWithPeople(group.getId()));
+
+		addUnrelatedGroups(100, 50);
+
+		long loadsAfter = entityLoadsFor(() -> groupController.getGroupWithPeople(group.getId()));
+		long nanosAfter = medianNanos(() -> groupController.getGroupWithPeople(group.getId()));
+
+		// only the group and its own people are ever materialised
+		assertThat(loadsAfter).isEqualTo(loadsBefore).isEqualTo(4);
+		// 5000 unrelated people must not show up in latency (generous bound against CI noise)
+		assertThat(nanosAfter).isLessThan(nanosBefore * 3 + 5_000_000L);
+	}
+
+	private void addUnrelatedGroups(int groups, int peoplePerGroup) {
+		for (int g = 0; g < groups; g++) {
+			GroupEntity other = new GroupEntity();
+			other.setName("other-" + g);
+			other = groupRepo.save(other);
+			List<Person> people = new ArrayList<>();
+			for (int i = 0; i < peoplePerGroup; i++) {
+				Person p = new Person();
+				p.setName("p" + i);
+				p.setGroup(other);
+				people.add(p);
+			}
+			personRepo.saveAll(people);
+		}
+	}
+
+	private long entityLoadsFor(Runnable action) {
+		Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		action.run();
+		return stats.getEntityLoadCount();
+	}
+
+	private static long medianNanos(Runnable action) {
+		for (int i = 0; i < 50; i++) action.run();
+		long[] samples = new long[101];
+		for (int i = 0; i < samples.length; i++) {
+			long start = System.nanoTime();
+			action.run();
+			samples[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(samples);
+		return samples[samples.length / 2];
+	}
+}
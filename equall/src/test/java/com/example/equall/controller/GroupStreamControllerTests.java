@@ -0,0 +1,121 @@
+package com.example.equall.controller;
+
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GroupStreamControllerTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Test
+	void pushesCommittedWritesAndFreshSettlement() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "stream")).getBody();
+		Person ann = (Person) groupController.addPerson(group.getId(), Map.of("name", "Ann")).getBody();
+		Person bob = (Person) groupController.addPerson(group.getId(), Map.of("name", "Bob")).getBody();
+
+		HttpURLConnection conn = open(group.getId());
+		assertThat(conn.getResponseCode()).isEqualTo(200);
+		assertThat(conn.getContentType()).startsWith("text/event-stream");
+		BlockingQueue<String[]> events = readEvents(conn);
+		try {
+			assertThat(next(events)[0]).isEqualTo("settlement");
+
+			Event created = (Event) eventController.createEvent(group.getId(),
+					Map.of("title", "Dinner", "amount", "30", "payerId", ann.getId())).getBody();
+			eventController.addParticipants(group.getId(), created.getId(),
+					Map.of("participants", List.of(ann.getId(), bob.getId())));
+
+			// settlement pushes may interleave with the write events
+			String[] event = nextNamed(events, "event-created");
+			assertThat(event[1]).contains("\"title\":\"Dinner\"").contains("\"paid\":30");
+			event = nextNamed(events, "participants-changed");
+			assertThat(event[1]).contains("\"owed\":15.00");
+			event = nextNamed(events, "settlement");
+			assertThat(event[1]).contains("\"transactions\":[{").contains("\"amount\":15");
+		} finally {
+			conn.disconnect();
+		}
+	}
+
+	@Test
+	void unknownGroupIsNotFound() throws IOException {
+		HttpURLConnection conn = open(Long.MAX_VALUE);
+		assertThat(conn.getResponseCode()).isEqualTo(404);
+		conn.disconnect();
+	}
+
+	private HttpURLConnection open(Long groupId) throws IOException {
+		HttpURLConnection conn = (HttpURLConnection) URI.create(
+				"http://localhost:" + port + "/api/groups/" + groupId + "/stream").toURL().openConnection();
+		conn.setRequestProperty("Accept", "text/event-stream");
+		conn.setReadTimeout(10_000);
+		return conn;
+	}
+
+	// parses the stream into {name, data} pairs on a background thread
+	private static BlockingQueue<String[]> readEvents(HttpURLConnection conn) throws IOException {
+		BlockingQueue<String[]> events = new LinkedBlockingQueue<>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+		Thread reader = new Thread(() -> {
+			String name = null;
+			StringBuilder data = new StringBuilder();
+			try {
+				for (String line; (line = in.readLine()) != null; ) {
+					if (line.startsWith("event:")) name = line.substring(6);
+					else if (line.startsWith("data:")) data.append(line.substring(5));
+					else if (line.isEmpty() && name != null) {
+						events.add(new String[] {name, data.toString()});
+						name = null;
+						data.setLength(0);
+					}
+				}
+			} catch (IOException ignored) {
+				// connection closed by the test
+			}
+		});
+		reader.setDaemon(true);
+		reader.start();
+		return events;
+	}
+
+	private static String[] nextNamed(BlockingQueue<String[]> events, String name) throws InterruptedException {
+		String[] event;
+		do {
+			event = next(events);
+		} while (!event[0].equals(name));
+		return event;
+	}
+
+	private static String[] next(BlockingQueue<String[]> events) throws InterruptedException {
+		String[] event = events.poll(10, TimeUnit.SECONDS);
+		assertThat(event).as("stream event").isNotNull();
+		return event;
+	}
+}
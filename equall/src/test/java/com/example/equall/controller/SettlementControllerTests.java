@@ -0,0 +1,179 @@
+package com.example.equall.controller;
+
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.equall.service.SettlementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"server.tomcat.threads.max=4",
+		"equall.settlement.requests.threads=2",
+		"equall.settlement.requests.queue-depth=4",
+		// keep background summary rebuilds away from the stubbed settlement service
+		"equall.summary.rebuild-on-write=false"
+})
+class SettlementControllerTests {
+
+	private static final long SETTLE_MILLIS = 400;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	@Qualifier("settlementRequestExecutor")
+	private ThreadPoolExecutor settleExecutor;
+
+	@MockitoSpyBean
+	private SettlementService settlementService;
+
+	private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+	@Test
+	void cheapEndpointsStayFastWhileSettlementsQueueUp() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "busy")).getBody();
+		groupController.addPerson(group.getId(), Map.of("name", "Ann"));
+		doAnswer(inv -> {
+			Thread.sleep(SETTLE_MILLIS);
+			return inv.callRealMethod();
+		}).when(settlementService).settleGroupDetailed(anyLong(), any());
+
+		HttpRequest read = HttpRequest.newBuilder(uri("/api/groups/" + group.getId())).GET().build();
+		assertThat(http.send(read, HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(200);
+
+		// far more settlements than request threads, settle threads and queue slots together
+		HttpRequest settle = HttpRequest.newBuilder(uri("/api/groups/" + group.getId() + "/settle"))
+				.POST(HttpRequest.BodyPublishers.noBody()).build();
+		List<CompletableFuture<HttpResponse<String>>> settles = new ArrayList<>();
+		for (int i = 0; i < 24; i++) {
+			settles.add(http.sendAsync(settle, HttpResponse.BodyHandlers.ofString()));
+		}
+		waitUntilBusy();
+
+		long slowest = 0;
+		for (int i = 0; i < 10; i++) {
+			long start = System.nanoTime();
+			assertThat(http.send(read, HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(200);
+			slowest = Math.max(slowest, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+		// a blocked request thread would make reads wait a whole settlement or more
+		assertThat(slowest).isLessThan(SETTLE_MILLIS);
+
+		int ok = 0;
+		int rejected = 0;
+		for (CompletableFuture<HttpResponse<String>> f : settles) {
+			HttpResponse<String> response = f.get(30, TimeUnit.SECONDS);
+			if (response.statusCode() == 429) {
+				rejected++;
+				assertThat(response.headers().firstValue("Retry-After")).hasValue("1");
+			} else {
+				assertThat(response.statusCode()).isEqualTo(200);
+				ok++;
+			}
+		}
+		assertThat(ok).isGreaterThanOrEqualTo(2);
+		assertThat(rejected).isGreaterThan(0);
+		assertThat(ok + rejected).isEqualTo(24);
+	}
+
+	@Test
+	void currentETagIsNotModifiedAndAWriteChangesIt() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "etags")).getBody();
+		Person ann = (Person) groupController.addPerson(group.getId(), Map.of("name", "Ann")).getBody();
+		Person bob = (Person) groupController.addPerson(group.getId(), Map.of("name", "Bob")).getBody();
+		List<Long> both = List.of(ann.getId(), bob.getId());
+		addEvent(group.getId(), ann.getId(), "20", both);
+		String path = "/api/groups/" + group.getId() + "/settle?mode=greedy";
+
+		HttpResponse<String> first = settle(path, null);
+		String etag = first.headers().firstValue("ETag").orElseThrow();
+		assertThat(first.statusCode()).isEqualTo(200);
+		assertThat(mapper.readTree(first.body()).get("cached").asBoolean()).isFalse();
+
+		HttpResponse<String> again = settle(path, null);
+		JsonNode cached = mapper.readTree(again.body());
+		assertThat(again.headers().firstValue("ETag")).contains(etag);
+		assertThat(cached.get("cached").asBoolean()).isTrue();
+		assertThat(cached.get("computeMicros").asLong()).isZero();
+		assertThat(cached.get("transactions")).isEqualTo(mapper.readTree(first.body()).get("transactions"));
+
+		clearInvocations(settlementService);
+		HttpResponse<String> unchanged = settle(path, etag);
+		assertThat(unchanged.statusCode()).isEqualTo(304);
+		assertThat(unchanged.headers().firstValue("ETag")).contains(etag);
+		verify(settlementService, never()).settleGroupDetailed(eq(group.getId()), any());
+		// the same revision in another response shape has its own tag
+		assertThat(settle("/api/groups/" + group.getId() + "/settle", etag).statusCode()).isEqualTo(200);
+
+		addEvent(group.getId(), ann.getId(), "10", both);
+		HttpResponse<String> changed = settle(path, etag);
+		assertThat(changed.statusCode()).isEqualTo(200);
+		assertThat(changed.headers().firstValue("ETag")).isPresent().get().isNotEqualTo(etag);
+		assertThat(mapper.readTree(changed.body()).get("cached").asBoolean()).isFalse();
+		assertThat(mapper.readTree(changed.body()).get("transactions").get(0).get("amount").decimalValue())
+				.isEqualByComparingTo("15");
+		verify(settlementService, times(2)).settleGroupDetailed(eq(group.getId()), any());
+	}
+
+	private void addEvent(Long groupId, Long payerId, String amount, List<Long> participants) {
+		Event e = (Event) eventController.createEvent(groupId,
+				Map.of("title", "e" + amount, "amount", amount, "payerId", payerId)).getBody();
+		eventController.addParticipants(groupId, e.getId(), Map.of("participants", participants));
+	}
+
+	private HttpResponse<String> settle(String path, String ifNoneMatch) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.noBody());
+		if (ifNoneMatch != null) request.header("If-None-Match", ifNoneMatch);
+		return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private void waitUntilBusy() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (settleExecutor.getActiveCount() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(settleExecutor.getActiveCount()).isEqualTo(2);
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.repository.PersonBalanceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// no write transaction is left open here, so snapshots may be taken as of now
+@SpringBootTest(properties = "equall.journal.snapshot-lag-seconds=0")
+class BalanceJournalServiceTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private BalanceJournalService journal;
+
+	@Autowired
+	private BalanceLedgerService ledger;
+
+	@Autowired
+	private SettlementService settlementService;
+
+	@Autowired
+	private PersonBalanceRepository balanceRepo;
+
+	@Autowired
+	private TransactionTemplate tx;
+
+	@Test
+	void balancesAsOfMatchLedgerAtThatTime() throws InterruptedException {
+		Long groupId = createGroup();
+		List<Long> people = peopleOf(groupId);
+		addEvents(groupId, people, 10);
+		Thread.sleep(2);
+		Instant earlier = Instant.now();
+		List<SettlementService.PersonSummary> ledgerThen = settlementService.settleGroupDetailed(groupId).people;
+
+		Thread.sleep(2);
+		journal.snapshot(groupId, Instant.now());
+		addEvents(groupId, people, 7);
+		// later than the cutoff: postings of still-open transactions would be lost
+		assertThatThrownBy(() -> journal.snapshot(groupId, Instant.now().plusSeconds(5)))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(journal.balancesAsOf(groupId, earlier).people)
+				.usingRecursiveComparison().isEqualTo(ledgerThen);
+		BalanceJournalService.BalancesAsOf now = journal.balancesAsOf(groupId, Instant.now());
+		assertThat(now.snapshotAt).isNotNull();
+		assertThat(now.people).usingRecursiveComparison()
+				.isEqualTo(settlementService.settleGroupDetailed(groupId).people);
+		assertThat(now.people).usingRecursiveComparison()
+				.isEqualTo(journal.balancesAsOf(groupId, now.asOf, false).people);
+	}
+
+	@Test
+	void rebuildFromJournalRestoresLostLedger() {
+		Long groupId = createGroup();
+		addEvents(groupId, peopleOf(groupId), 12);
+		List<SettlementService.PersonSummary> before = settlementService.settleGroupDetailed(groupId).people;
+
+		tx.executeWithoutResult(s -> balanceRepo.deleteByGroupId(groupId));
+		ledger.rebuildFromJournal(groupId);
+
+		assertThat(settlementService.settleGroupDetailed(groupId).people)
+				.usingRecursiveComparison().isEqualTo(before);
+		assertThat(ledger.reconcile(groupId).discrepancies).isEmpty();
+	}
+
+	private Long createGroup() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "journal")).getBody();
+		for (String name : List.of("Ann", "Bob", "Cid")) {
+			groupController.addPerson(group.getId(), Map.of("name", name));
+		}
+		return group.getId();
+	}
+
+	private List<Long> peopleOf(Long groupId) {
+		List<Long> ids = new ArrayList<>();
+		for (SettlementService.PersonSummary p : settlementService.settleGroupDetailed(groupId).people) {
+			ids.add(p.personId);
+		}
+		return ids;
+	}
+
+	private void addEvents(Long groupId, List<Long> people, int count) {
+		for (int i = 0; i < count; i++) {
+			Event e = (Event) eventController.createEvent(groupId,
+					Map.of("amount", String.valueOf(10 + i * 3), "payerId", people.get(i % people.size()))).getBody();
+			eventController.addParticipants(groupId, e.getId(), Map.of("participants", people.subList(0, 1 + i % 3)));
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recomputes a group with 200k participant rows. Runs in its own surefire execution with a
+ * small -Xmx (see pom.xml) against an off-heap H2 database (nioMemFS), so the rows do not
+ * count against the test's heap; fails with OutOfMemoryError if recompute holds them all.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:nioMemFS:bounded-heap;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.show-sql=false"
+})
+class BalanceLedgerBoundedHeapTests {
+
+	private static final int PEOPLE = 20;
+	private static final int EVENTS = 50_000;
+	private static final int PER_EVENT = 4;
+	private static final long FIRST_ID = 10_000_000L;
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private BalanceLedgerService ledger;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void recomputeStreamsParticipantRows() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "large")).getBody();
+		long firstPerson = Long.MAX_VALUE;
+		for (int i = 0; i < PEOPLE; i++) {
+			Person p = (Person) groupController.addPerson(group.getId(), Map.of("name", "p" + i)).getBody();
+			firstPerson = Math.min(firstPerson, p.getId());
+		}
+
+		// generated in the database; person ids of a fresh group are consecutive
+		jdbc.update("insert into event (id, title, amount, payer_id, group_id) " +
+						"select ? + x, 'e', 10 + mod(x, 7), ? + mod(x, ?), ? from system_range(0, ?)",
+				FIRST_ID, firstPerson, PEOPLE, group.getId(), EVENTS - 1);
+		jdbc.update("insert into event_participant (id, event_id, person_id, share) " +
+						"select ? + x, ? + x / ?, ? + mod(x, ?), 1 from system_range(0, ?)",
+				FIRST_ID, FIRST_ID, PER_EVENT, firstPerson, PEOPLE, (long) EVENTS * PER_EVENT - 1);
+
+		Map<Long, BalanceLedgerService.Totals> totals = ledger.recompute(group.getId());
+
+		BigDecimal expected = BigDecimal.ZERO;
+		for (int x = 0; x < EVENTS; x++) expected = expected.add(BigDecimal.valueOf(10 + x % 7));
+		BigDecimal paid = BigDecimal.ZERO;
+		BigDecimal owed = BigDecimal.ZERO;
+		for (BalanceLedgerService.Totals t : totals.values()) {
+			paid = paid.add(t.paid);
+			owed = owed.add(t.owed);
+		}
+		assertThat(totals).hasSize(PEOPLE);
+		assertThat(paid).isEqualByComparingTo(expected);
+		assertThat(owed).isEqualByComparingTo(expected);
+	}
+}
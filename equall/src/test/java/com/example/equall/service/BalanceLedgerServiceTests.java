@@ -0,0 +1,270 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.controller.SettlementController;
+import com.example.equall.model.Event;
+import com.example.equall.model.EventParticipant;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.model.PersonBalance;
+import com.example.equall.repository.EventParticipantRepository;
+import com.example.equall.repository.PersonBalanceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		// statistics are global; no background summary rebuilds while counting statements
+		"equall.summary.rebuild-on-write=false"
+})
+class BalanceLedgerServiceTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private SettlementController settlementController;
+
+	@Autowired
+	private BalanceLedgerService ledger;
+
+	@Autowired
+	private PersonBalanceRepository balanceRepo;
+
+	@Autowired
+	private EventParticipantRepository participantRepo;
+
+	@Autowired
+	private SettlementService settlementService;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Autowired
+	private TransactionTemplate tx;
+
+	@Test
+	void recomputeUsesConstantNumberOfStatements() {
+		Long small = createGroupWithEvents(5);
+		Long large = createGroupWithEvents(200);
+
+		assertThat(statementsFor(() -> ledger.recompute(large)))
+				.isEqualTo(statementsFor(() -> ledger.recompute(small)))
+				.isLessThanOrEqualTo(4);
+	}
+
+	@Test
+	void settleUsesConstantNumberOfStatements() {
+		Long small = createGroupWithEvents(5);
+		Long large = createGroupWithEvents(200);
+
+		assertThat(statementsFor(() -> settlementService.settleGroupDetailed(large)))
+				.isEqualTo(statementsFor(() -> settlementService.settleGroupDetailed(small)))
+				.isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void ledgerMatchesRecomputeAfterWrites() {
+		Long groupId = createGroupWithEvents(50);
+
+		assertThat(ledger.reconcile(groupId).discrepancies).isEmpty();
+	}
+
+	@Test
+	void rebuildRepairsDrift() {
+		Long groupId = createGroupWithEvents(20);
+		List<PersonBalance> rows = balanceRepo.findByGroupIdWithPerson(groupId);
+		Long drifted = rows.get(0).getPerson().getId();
+		Long lost = rows.get(1).getPerson().getId();
+		tx.executeWithoutResult(s -> {
+			balanceRepo.addToBalance(groupId, drifted, new BigDecimal("5.00"), BigDecimal.ZERO);
+			balanceRepo.deleteById(rows.get(1).getId());
+		});
+
+		BalanceLedgerService.ReconciliationReport found = report(settlementController.reconcileLedger(groupId));
+		assertThat(found.discrepancies).extracting(d -> d.personId).containsExactly(drifted, lost);
+		BalanceLedgerService.ReconciliationReport repaired =
+				report(settlementController.rebuildLedger(groupId, "events"));
+		assertThat(repaired.discrepancies).extracting(d -> d.personId).containsExactly(drifted, lost);
+
+		assertThat(report(settlementController.reconcileLedger(groupId)).discrepancies).isEmpty();
+		assertThat(report(settlementController.rebuildLedger(groupId, "events")).discrepancies).isEmpty();
+		assertThat(settlementController.rebuildLedger(groupId, "cache").getStatusCode().value()).isEqualTo(400);
+		assertThat(settlementController.reconcileLedger(-1L).getStatusCode().value()).isEqualTo(400);
+	}
+
+	@Test
+	void concurrentFirstWritesOfAPersonShareOneBalanceRow() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "first-writes")).getBody();
+		Person ann = (Person) groupController.addPerson(group.getId(), Map.of("name", "Ann")).getBody();
+		// a person without a balance row yet, written next to one who has a row
+		tx.executeWithoutResult(s -> balanceRepo.deleteByGroupId(group.getId()));
+		Person bob = (Person) groupController.addPerson(group.getId(), Map.of("name", "Bob")).getBody();
+
+		int writers = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(writers);
+		try {
+			List<Future<ResponseEntity<?>>> created = new ArrayList<>();
+			for (int i = 0; i < writers; i++) {
+				Long payer = (i % 2 == 0 ? ann : bob).getId();
+				created.add(pool.submit(() -> {
+					start.await();
+					return eventController.createEvent(group.getId(),
+							Map.of("title", "taxi", "amount", "10", "payerId", payer));
+				}));
+			}
+			start.countDown();
+			for (Future<ResponseEntity<?>> f : created) {
+				assertThat(f.get().getStatusCode().value()).isEqualTo(201);
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		List<PersonBalance> rows = balanceRepo.findByGroupIdWithPerson(group.getId());
+		assertThat(rows).extracting(b -> b.getPerson().getId()).containsExactly(ann.getId(), bob.getId());
+		assertThat(rows).allSatisfy(b -> assertThat(b.getPaid()).isEqualByComparingTo("40"));
+		assertThat(ledger.reconcile(group.getId()).discrepancies).isEmpty();
+	}
+
+	@Test
+	void parallelRecomputeMatchesSequential() {
+		Long groupId = createGroupWithEvents(200);
+
+		// recompute(Long, boolean) runs in the caller's transaction
+		Map<Long, BalanceLedgerService.Totals> parallel = tx.execute(s -> ledger.recompute(groupId, true));
+		Map<Long, BalanceLedgerService.Totals> sequential = tx.execute(s -> ledger.recompute(groupId, false));
+		assertThat(parallel).usingRecursiveComparison().isEqualTo(sequential);
+	}
+
+	@Test
+	void splitModesStoreLargestRemainderAmounts() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "splits")).getBody();
+		List<Long> people = new ArrayList<>();
+		for (String name : List.of("Ann", "Bob", "Cid")) {
+			people.add(((Person) groupController.addPerson(group.getId(), Map.of("name", name)).getBody()).getId());
+		}
+		Event e = (Event) eventController.createEvent(group.getId(),
+				Map.of("title", "dinner", "amount", "100", "payerId", people.get(0), "split", "equal")).getBody();
+
+		assertThat(owed(eventController.replaceParticipants(group.getId(), e.getId(),
+				Map.of("participants", people)))).containsExactly("33.34", "33.33", "33.33");
+
+		assertThat(owed(eventController.replaceParticipants(group.getId(), e.getId(), Map.of("split", "percent",
+				"participants", List.of(Map.of("personId", people.get(0), "percent", 50),
+						Map.of("personId", people.get(1), "percent", "33.3"),
+						Map.of("personId", people.get(2), "percent", "16.7"))))))
+				.containsExactly("50.00", "33.30", "16.70");
+
+		assertThat(owed(eventController.replaceParticipants(group.getId(), e.getId(), Map.of("split", "shares",
+				"participants", List.of(Map.of("personId", people.get(1), "share", 2), people.get(2))))))
+				.containsExactly("66.67", "33.33");
+
+		// exact amounts that do not add up are rejected and change nothing
+		assertThat(eventController.replaceParticipants(group.getId(), e.getId(), Map.of("split", "exact",
+				"participants", List.of(Map.of("personId", people.get(0), "amount", 60),
+						Map.of("personId", people.get(1), "amount", 30)))).getStatusCode().value())
+				.isEqualTo(400);
+		assertThat(owed(eventController.replaceParticipants(group.getId(), e.getId(), Map.of("split", "exact",
+				"participants", List.of(Map.of("personId", people.get(0), "amount", 60),
+						Map.of("personId", people.get(1), "amount", "40.00"))))))
+				.containsExactly("40.00", "60.00");
+
+		assertThat(ledger.reconcile(group.getId()).discrepancies).isEmpty();
+		Map<Long, BalanceLedgerService.Totals> totals = ledger.recompute(group.getId());
+		assertThat(totals.get(people.get(0)).owed).isEqualByComparingTo("60");
+		assertThat(totals.get(people.get(1)).owed).isEqualByComparingTo("40");
+		assertThat(totals.get(people.get(2)).owed).isEqualByComparingTo("0");
+	}
+
+	@Test
+	void percentSharesKeepFourDecimals() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "thirds")).getBody();
+		List<Long> people = new ArrayList<>();
+		for (String name : List.of("Ann", "Bob", "Cid", "Dan")) {
+			people.add(((Person) groupController.addPerson(group.getId(), Map.of("name", name)).getBody()).getId());
+		}
+		Event e = (Event) eventController.createEvent(group.getId(),
+				Map.of("title", "cabin", "amount", "100", "payerId", people.get(0), "split", "percent")).getBody();
+
+		assertThat(owed(eventController.replaceParticipants(group.getId(), e.getId(), Map.of(
+				"participants", List.of(Map.of("personId", people.get(0), "percent", "33.3333"),
+						Map.of("personId", people.get(1), "percent", "33.3333"),
+						Map.of("personId", people.get(2), "percent", "33.3334"))))))
+				.containsExactly("33.33", "33.33", "33.34");
+		assertThat(participantRepo.findByEventIdOrderById(e.getId())).extracting(EventParticipant::getShare)
+				.usingElementComparator(BigDecimal::compareTo)
+				.containsExactly(new BigDecimal("33.3333"), new BigDecimal("33.3333"), new BigDecimal("33.3334"));
+
+		// the stored percentages are re-validated and still add up to exactly 100
+		ResponseEntity<?> added = eventController.addParticipants(group.getId(), e.getId(),
+				Map.of("participants", List.of(Map.of("personId", people.get(3), "percent", 0))));
+		assertThat(added.getStatusCode().value()).as(String.valueOf(added.getBody())).isEqualTo(200);
+		assertThat(ledger.reconcile(group.getId()).discrepancies).isEmpty();
+	}
+
+	private static BalanceLedgerService.ReconciliationReport report(ResponseEntity<?> response) {
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		return (BalanceLedgerService.ReconciliationReport) response.getBody();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> owed(ResponseEntity<?> response) {
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		List<String> owed = new ArrayList<>();
+		for (Map<String, Object> p : (List<Map<String, Object>>) ((Map<String, Object>) response.getBody()).get("participants")) {
+			owed.add(((BigDecimal) p.get("owed")).toPlainString());
+		}
+		return owed;
+	}
+
+	private long statementsFor(Runnable action) {
+		Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		action.run();
+		return stats.getPrepareStatementCount();
+	}
+
+	private Long createGroupWithEvents(int eventCount) {
+		GroupEntity group = groupController.createGroup(Map.of("name", "ledger-" + eventCount)).getBody();
+		List<Long> people = new ArrayList<>();
+		for (String name : List.of("Ann", "Bob", "Cid", "Dee")) {
+			Person p = (Person) groupController.addPerson(group.getId(), Map.of("name", name)).getBody();
+			people.add(p.getId());
+		}
+
+		for (int i = 0; i < eventCount; i++) {
+			Long payer = people.get(i % people.size());
+			Event e = (Event) eventController.createEvent(group.getId(),
+					Map.of("title", "e" + i, "amount", String.valueOf(10 + i * 7 % 91), "payerId", payer)).getBody();
+			// participants added in two calls so the ledger has to re-split the event
+			eventController.addParticipants(group.getId(), e.getId(),
+					Map.of("participants", people.subList(0, 1 + i % 3)));
+			eventController.addParticipants(group.getId(), e.getId(),
+					Map.of("participants", List.of(people.get(3))));
+		}
+		return group.getId();
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BatchSettlementServiceTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private BatchSettlementService batch;
+
+	@Autowired
+	private SettlementService settlementService;
+
+	@Test
+	void settlesEveryGroupAndIsolatesFailures() {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 12; i++) ids.add(createGroup(i));
+		ids.add(Long.MAX_VALUE);
+		ids.add(ids.get(0));
+
+		List<BatchSettlementService.GroupOutcome> streamed = new ArrayList<>();
+		BatchSettlementService.BatchSummary summary = batch.settle(ids, SettlementService.Mode.GREEDY, streamed::add);
+
+		assertThat(summary.groups).isEqualTo(13);
+		assertThat(summary.succeeded).isEqualTo(12);
+		assertThat(summary.failed).isEqualTo(1);
+		assertThat(streamed).hasSize(13);
+		for (BatchSettlementService.GroupOutcome o : streamed) {
+			if (o.groupId == Long.MAX_VALUE) {
+				assertThat(o.ok).isFalse();
+				assertThat(o.error).contains("Group not found");
+			} else {
+				assertThat(o.ok).isTrue();
+				assertThat(o.transactions).usingRecursiveComparison()
+						.isEqualTo(settlementService.settleGroupDetailed(o.groupId).transactions);
+			}
+		}
+	}
+
+	@Test
+	void selectsGroupsChangedSince() throws InterruptedException {
+		Long before = createGroup(1);
+		Thread.sleep(5);
+		Instant since = Instant.now();
+		Long after = createGroup(2);
+
+		assertThat(batch.groupsChangedSince(since)).contains(after).doesNotContain(before);
+	}
+
+	private Long createGroup(int events) {
+		GroupEntity group = groupController.createGroup(Map.of("name", "batch-" + events)).getBody();
+		Person ann = (Person) groupController.addPerson(group.getId(), Map.of("name", "Ann")).getBody();
+		Person bob = (Person) groupController.addPerson(group.getId(), Map.of("name", "Bob")).getBody();
+		for (int i = 0; i < events; i++) {
+			Person payer = i % 2 == 0 ? ann : bob;
+			eventController.createEvent(group.getId(), Map.of("amount", String.valueOf(5 + i), "payerId", payer.getId()));
+		}
+		return group.getId();
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.repository.EventRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		// statistics are global; no background summary rebuilds while counting statements
+		"equall.summary.rebuild-on-write=false"
+})
+class EventImportServiceTests {
+
+	private static final Logger log = LoggerFactory.getLogger(EventImportServiceTests.class);
+
+	// 5,000 events with 4 participants each (25,000 rows); the throughput target is
+	// EventImportBenchmark's (-Pjmh), wall-clock rates are only logged here
+	private static final int EVENTS = 5_000;
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventImportService importService;
+
+	@Autowired
+	private BalanceLedgerService ledger;
+
+	@Autowired
+	private EventRepository eventRepo;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Test
+	void importsThousandsOfEventsInBatches() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "import")).getBody();
+		List<Long> people = addPeople(group.getId(), 4);
+
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < EVENTS; i++) {
+			ndjson.append("{\"title\":\"e").append(i)
+					.append("\",\"amount\":").append(10 + i % 97).append(".25")
+					.append(",\"payerId\":").append(people.get(i % 4))
+					.append(",\"participants\":").append(people).append("}\n");
+		}
+
+		// warm-up run on another group so the logged rate excludes class loading
+		importService.importEvents(groupController.createGroup(Map.of("name", "warmup")).getBody().getId(),
+				stream("[]"), false);
+
+		Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		EventImportService.ImportResult result = importService.importEvents(group.getId(), stream(ndjson.toString()), true);
+
+		assertThat(result.events).isEqualTo(EVENTS);
+		assertThat(result.participants).isEqualTo(EVENTS * 4);
+		log.info("Imported {} events in {} ms ({} events/s)", result.events, result.elapsedMillis, result.eventsPerSecond);
+		// 25,000 inserted rows must go out in JDBC batches, not one statement each
+		assertThat(stats.getPrepareStatementCount()).isLessThan(EVENTS / 5);
+		assertThat(eventRepo.findByGroupId(group.getId())).hasSize(EVENTS);
+		assertThat(ledger.reconcile(group.getId()).discrepancies).isEmpty();
+	}
+
+	@Test
+	void rejectsWholeImportWhenOneParticipantIsNotInGroup() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "import-invalid")).getBody();
+		List<Long> people = addPeople(group.getId(), 2);
+		String body = "{\"events\":[" +
+				"{\"title\":\"ok\",\"amount\":10,\"payerId\":" + people.get(0) + ",\"participants\":" + people + "}," +
+				"{\"title\":\"bad\",\"amount\":10,\"payerId\":" + people.get(0) + ",\"participants\":[-1]}]}";
+
+		assertThatThrownBy(() -> importService.importEvents(group.getId(), stream(body), false))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Event #2");
+		assertThat(eventRepo.findByGroupId(group.getId())).isEmpty();
+	}
+
+	private List<Long> addPeople(Long groupId, int count) {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Person p = (Person) groupController.addPerson(groupId, Map.of("name", "p" + i)).getBody();
+			ids.add(p.getId());
+		}
+		return ids;
+	}
+
+	private static ByteArrayInputStream stream(String s) {
+		return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+	}
+}
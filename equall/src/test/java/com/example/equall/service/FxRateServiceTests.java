@@ -0,0 +1,96 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.Event;
+import com.example.equall.model.FxRate;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.repository.EventRepository;
+import com.example.equall.repository.FxRateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class FxRateServiceTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private SettlementService settlementService;
+
+	@Autowired
+	private BalanceLedgerService ledger;
+
+	@Autowired
+	private FxRateService fx;
+
+	@Autowired
+	private FxRateRepository rateRepo;
+
+	@Autowired
+	private EventRepository eventRepo;
+
+	@Test
+	void convertsOnceAtWriteTimeAndSettlesInBaseCurrency() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "abroad", "baseCurrency", "eur")).getBody();
+		assertThat(group.getBaseCurrency()).isEqualTo("EUR");
+		Person ann = (Person) groupController.addPerson(group.getId(), Map.of("name", "Ann")).getBody();
+		Person bob = (Person) groupController.addPerson(group.getId(), Map.of("name", "Bob")).getBody();
+
+		// 30 USD at 83.10 / 90.25 = 27.62 EUR; exact amounts are given in USD
+		Event dinner = (Event) eventController.createEvent(group.getId(), Map.of(
+				"title", "Dinner", "amount", "30", "currency", "usd", "split", "exact", "payerId", ann.getId())).getBody();
+		assertThat(dinner.getCurrency()).isEqualTo("USD");
+		assertThat(dinner.getOriginalAmount()).isEqualByComparingTo("30");
+		assertThat(dinner.getAmount()).isEqualByComparingTo("27.62");
+		assertThat(eventController.replaceParticipants(group.getId(), dinner.getId(), Map.of("participants", List.of(
+				Map.of("personId", ann.getId(), "amount", "10"),
+				Map.of("personId", bob.getId(), "amount", "20")))).getStatusCode().value()).isEqualTo(200);
+
+		// a rate change only affects later events
+		BigDecimal usd = rateRepo.findById("USD").orElseThrow().getRate();
+		try {
+			rateRepo.save(new FxRate("USD", new BigDecimal("90.25"), Instant.now()));
+			fx.refresh();
+			Event taxi = (Event) eventController.createEvent(group.getId(), Map.of(
+					"title", "Taxi", "amount", "10", "currency", "USD", "payerId", bob.getId())).getBody();
+			assertThat(taxi.getAmount()).isEqualByComparingTo("10.00");
+			eventController.addParticipants(group.getId(), taxi.getId(), Map.of("participants", List.of(ann.getId(), bob.getId())));
+		} finally {
+			rateRepo.save(new FxRate("USD", usd, Instant.now()));
+			fx.refresh();
+		}
+		assertThat(eventRepo.findById(dinner.getId()).orElseThrow().getAmount()).isEqualByComparingTo("27.62");
+
+		// Ann: paid 27.62, owes 9.21 + 5; Bob: paid 10, owes 18.41 + 5
+		SettlementService.DetailedResult d = settlementService.settleGroupDetailed(group.getId());
+		assertThat(d.transactions).hasSize(1);
+		assertThat(d.transactions.get(0).amount).isEqualByComparingTo("13.41");
+		assertThat(ledger.reconcile(group.getId()).discrepancies).isEmpty();
+	}
+
+	@Test
+	void unknownCurrencyIsRejected() {
+		assertThat(groupController.createGroup(Map.of("name", "x", "baseCurrency", "XYZ")).getStatusCode().value())
+				.isEqualTo(400);
+
+		GroupEntity group = groupController.createGroup(Map.of("name", "home")).getBody();
+		assertThat(group.getBaseCurrency()).isEqualTo("INR");
+		Person ann = (Person) groupController.addPerson(group.getId(), Map.of("name", "Ann")).getBody();
+		assertThat(eventController.createEvent(group.getId(), Map.of(
+				"amount", "5", "currency", "XYZ", "payerId", ann.getId())).getStatusCode().value()).isEqualTo(400);
+	}
+}
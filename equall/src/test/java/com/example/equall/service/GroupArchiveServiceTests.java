@@ -0,0 +1,132 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.repository.GroupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class GroupArchiveServiceTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private EventImportService importService;
+
+	@Autowired
+	private GroupArchiveService archive;
+
+	@Autowired
+	private SettlementService settlementService;
+
+	@Autowired
+	private BalanceLedgerService ledger;
+
+	@Autowired
+	private GroupRepository groupRepo;
+
+	@Test
+	void roundTripsThroughFileAndChannel(@TempDir Path dir) throws Exception {
+		Long source = createGroup();
+
+		Path file = dir.resolve("group.eqga");
+		GroupArchiveService.ArchiveResult exported = archive.exportToFile(source, file);
+		assertThat(exported.events).isEqualTo(1_202);
+		assertThat(exported.bytes).isEqualTo(Files.size(file));
+
+		GroupArchiveService.ArchiveResult fromFile = archive.importFile(file);
+		GroupArchiveService.ArchiveResult fromChannel = archive.importArchive(
+				Channels.newChannel(new ByteArrayInputStream(Files.readAllBytes(file))));
+
+		for (GroupArchiveService.ArchiveResult imported : List.of(fromFile, fromChannel)) {
+			assertThat(imported.groupId).isNotEqualTo(source);
+			assertThat(imported.events).isEqualTo(exported.events);
+			assertThat(imported.participants).isEqualTo(exported.participants);
+			assertThat(imported.bytes).isEqualTo(exported.bytes);
+			// same group again, down to stored owed amounts, currencies and rates
+			assertThat(exportBytes(imported.groupId)).isEqualTo(Files.readAllBytes(file));
+			assertThat(ledger.reconcile(imported.groupId).discrepancies).isEmpty();
+			assertThat(settlementService.settleGroupDetailed(imported.groupId))
+					.usingRecursiveComparison()
+					.comparingOnlyFields("people.name", "people.paid", "people.owed", "transactions.fromName",
+							"transactions.toName", "transactions.amount")
+					.isEqualTo(settlementService.settleGroupDetailed(source));
+		}
+	}
+
+	@Test
+	void rejectsBrokenArchivesWithoutWritingAnything() throws Exception {
+		byte[] bytes = exportBytes(createGroup());
+		long groups = groupRepo.count();
+
+		assertThatThrownBy(() -> archive.importArchive(Channels.newChannel(
+				new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)))))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> archive.importArchive(Channels.newChannel(
+				new ByteArrayInputStream("{\"events\":[]}".getBytes(StandardCharsets.UTF_8)))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Not a group archive");
+		assertThat(groupRepo.count()).isEqualTo(groups);
+	}
+
+	private byte[] exportBytes(Long groupId) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		archive.export(groupId, Channels.newChannel(out));
+		return out.toByteArray();
+	}
+
+	// base EUR; a converted exact split, a percent split and a bulk import past one chunk
+	private Long createGroup() throws Exception {
+		GroupEntity group = groupController.createGroup(Map.of("name", "archive", "baseCurrency", "EUR")).getBody();
+		List<Long> people = new ArrayList<>();
+		for (String name : List.of("Ann", "Bob", "Cid")) {
+			people.add(((Person) groupController.addPerson(group.getId(), Map.of("name", name)).getBody()).getId());
+		}
+
+		Event dinner = (Event) eventController.createEvent(group.getId(), Map.of(
+				"title", "Dinner", "amount", "30", "currency", "USD", "split", "exact", "payerId", people.get(0))).getBody();
+		eventController.replaceParticipants(group.getId(), dinner.getId(), Map.of("participants", List.of(
+				Map.of("personId", people.get(1), "amount", "12.5"),
+				Map.of("personId", people.get(2), "amount", "17.5"))));
+		Event hotel = (Event) eventController.createEvent(group.getId(), Map.of(
+				"title", "Hotel", "amount", "100", "split", "percent", "payerId", people.get(1))).getBody();
+		eventController.replaceParticipants(group.getId(), hotel.getId(), Map.of("participants", List.of(
+				Map.of("personId", people.get(0), "percent", "33.3"),
+				Map.of("personId", people.get(1), "percent", "33.3"),
+				Map.of("personId", people.get(2), "percent", "33.4"))));
+
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < 1_200; i++) {
+			ndjson.append("{\"title\":\"e").append(i).append("\",\"amount\":").append(1 + i % 50).append(".10")
+					.append(",\"payerId\":").append(people.get(i % 3))
+					.append(",\"participants\":").append(people.subList(0, 2 + i % 2)).append("}\n");
+		}
+		importService.importEvents(group.getId(),
+				new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), true);
+		return group.getId();
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.controller.GroupSummaryController;
+import com.example.equall.model.Event;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import com.example.equall.repository.GroupSummaryRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class GroupSummaryServiceTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private GroupSummaryController summaryController;
+
+	@Autowired
+	private GroupSummaryService summaries;
+
+	@Autowired
+	private GroupSummaryRepository summaryRepo;
+
+	@Autowired
+	private SettlementService settlementService;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private EntityManagerFactory emf;
+
+	@Autowired
+	@Qualifier("groupSummaryExecutor")
+	private ExecutorService summaryExecutor;
+
+	@Test
+	void maintainedOnWriteAndServedInOneStatement() throws Exception {
+		Long groupId = createGroup();
+		awaitCurrent(groupId);
+		awaitIdle();
+
+		Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		String json = summaries.summaryJson(groupId);
+		assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+
+		JsonNode summary = mapper.readTree(json);
+		assertThat(summary.get("eventCount").asLong()).isEqualTo(3);
+		assertThat(summary.get("totalSpend").decimalValue()).isEqualByComparingTo("105");
+		assertThat(summary.get("members")).hasSize(3);
+		SettlementService.DetailedResult d = settlementService.settleGroupDetailed(groupId);
+		assertThat(summary.get("members")).isEqualTo(mapper.readTree(mapper.writeValueAsString(d.people)));
+		assertThat(summary.get("transfers")).isEqualTo(mapper.readTree(mapper.writeValueAsString(d.transactions)));
+	}
+
+	@Test
+	void neverServesAnOutdatedSummary() throws Exception {
+		Long groupId = createGroup();
+		awaitCurrent(groupId);
+
+		Long payer = mapper.readTree(summaries.summaryJson(groupId)).get("members").get(0).get("personId").asLong();
+		eventController.createEvent(groupId, Map.of("title", "late", "amount", "40", "payerId", payer));
+
+		// read right after the commit, whether or not the background rebuild has run
+		JsonNode summary = mapper.readTree(summaries.summaryJson(groupId));
+		assertThat(summary.get("eventCount").asLong()).isEqualTo(4);
+		assertThat(summary.get("totalSpend").decimalValue()).isEqualByComparingTo("145");
+	}
+
+	@Test
+	void concurrentRebuildsOfAMissingRowLeaveTheCurrentSummary() throws Exception {
+		Long groupId = createGroup();
+		awaitCurrent(groupId);
+		awaitIdle();
+		summaryRepo.deleteById(groupId);
+
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<String>> rebuilds = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				rebuilds.add(pool.submit(() -> {
+					start.await();
+					return summaries.rebuild(groupId);
+				}));
+			}
+			start.countDown();
+			for (Future<String> f : rebuilds) f.get(10, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(summaryRepo.findCurrentPayload(groupId)).isPresent();
+	}
+
+	@Test
+	void unknownGroupIsNotFound() {
+		assertThat(summaryController.summary(Long.MAX_VALUE).getStatusCode().value()).isEqualTo(404);
+	}
+
+	private void awaitCurrent(Long groupId) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (summaryRepo.findCurrentPayload(groupId).isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(summaryRepo.findCurrentPayload(groupId)).isPresent();
+	}
+
+	// statistics are global, so no rebuild (of any group) may run while counting
+	private void awaitIdle() throws InterruptedException {
+		ThreadPoolExecutor pool = (ThreadPoolExecutor) summaryExecutor;
+		long deadline = System.currentTimeMillis() + 10_000;
+		while ((pool.getActiveCount() > 0 || !pool.getQueue().isEmpty()) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+	}
+
+	// 3 people, 3 events (30 + 35 + 40), everyone takes part
+	private Long createGroup() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "summary")).getBody();
+		List<Long> people = new ArrayList<>();
+		for (String name : List.of("Ann", "Bob", "Cid")) {
+			people.add(((Person) groupController.addPerson(group.getId(), Map.of("name", name)).getBody()).getId());
+		}
+		for (int i = 0; i < 3; i++) {
+			Event e = (Event) eventController.createEvent(group.getId(), Map.of(
+					"title", "e" + i, "amount", String.valueOf(30 + 5 * i), "payerId", people.get(i))).getBody();
+			eventController.addParticipants(group.getId(), e.getId(), Map.of("participants", people));
+		}
+		return group.getId();
+	}
+}
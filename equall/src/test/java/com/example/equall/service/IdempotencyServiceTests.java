@@ -0,0 +1,44 @@
+package com.example.equall.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyServiceTests {
+
+	// one answered key in memory, nothing persisted
+	private final IdempotencyService idempotency = new IdempotencyService(null, new SimpleMeterRegistry(), 1, 60, false);
+
+	@Test
+	void runningRequestIsNeverEvicted() {
+		assertThat(idempotency.begin("a", "fa").outcome).isEqualTo(IdempotencyService.Outcome.PROCEED);
+		for (String key : new String[]{"b", "c"}) {
+			assertThat(idempotency.begin(key, "f" + key).outcome).isEqualTo(IdempotencyService.Outcome.PROCEED);
+			idempotency.complete(key, "f" + key, response(key));
+		}
+
+		assertThat(idempotency.begin("a", "fa").outcome).isEqualTo(IdempotencyService.Outcome.IN_FLIGHT);
+		assertThat(idempotency.begin("a", "other").outcome).isEqualTo(IdempotencyService.Outcome.MISMATCH);
+
+		idempotency.complete("a", "fa", response("a"));
+		IdempotencyService.Claim retry = idempotency.begin("a", "fa");
+		assertThat(retry.outcome).isEqualTo(IdempotencyService.Outcome.REPLAY);
+		assertThat(new String(retry.response.body, StandardCharsets.UTF_8)).isEqualTo("a");
+		// "c" was answered last but evicted by the replayed "a"
+		assertThat(idempotency.begin("c", "fc").outcome).isEqualTo(IdempotencyService.Outcome.PROCEED);
+	}
+
+	@Test
+	void failedRequestCanBeRetried() {
+		assertThat(idempotency.begin("a", "fa").outcome).isEqualTo(IdempotencyService.Outcome.PROCEED);
+		idempotency.abandon("a");
+		assertThat(idempotency.begin("a", "fa").outcome).isEqualTo(IdempotencyService.Outcome.PROCEED);
+	}
+
+	private static IdempotencyService.StoredResponse response(String body) {
+		return new IdempotencyService.StoredResponse(201, "application/json", null, body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,76 @@
+package com.example.equall.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinimalSettlementSolverTests {
+
+	private final SettlementEngine engine = new CentsSettlementEngine();
+	private final MinimalSettlementSolver solver = new MinimalSettlementSolver(engine, 20, 1_000);
+
+	@Test
+	void usesFewerTransfersThanGreedyWhenZeroSumSubsetsExist() {
+		long[] ids = {1, 2, 3, 4, 5, 6};
+		long[] balances = {-900, 700, -200, 500, 600, -700};
+
+		MinimalSettlementSolver.Result result = solver.solve(ids, balances);
+
+		assertThat(engine.match(ids, balances).size).isEqualTo(5);
+		assertThat(result.algorithm).isEqualTo(MinimalSettlementSolver.EXACT);
+		assertThat(result.transfers.size).isEqualTo(4);
+		assertSettles(ids, balances, result.transfers);
+	}
+
+	@Test
+	void neverWorseThanGreedyAndAlwaysSettles() {
+		Random rnd = new Random(3);
+		for (int c = 0; c < 500; c++) {
+			int n = 2 + rnd.nextInt(11);
+			long[] ids = new long[n];
+			long[] balances = new long[n];
+			long sum = 0;
+			for (int i = 0; i < n; i++) {
+				ids[i] = i + 1;
+				balances[i] = i == n - 1 ? -sum : (rnd.nextInt(19) - 9) * 100L;
+				sum += balances[i];
+			}
+
+			MinimalSettlementSolver.Result result = solver.solve(ids, balances);
+
+			assertThat(result.transfers.size).isLessThanOrEqualTo(engine.match(ids, balances).size);
+			assertSettles(ids, balances, result.transfers);
+		}
+	}
+
+	@Test
+	void fallsBackToGreedyAboveExactLimit() {
+		MinimalSettlementSolver small = new MinimalSettlementSolver(engine, 3, 1_000);
+		long[] ids = {1, 2, 3, 4};
+		long[] balances = {100, 100, -100, -100};
+
+		assertThat(small.solve(ids, balances).algorithm).isEqualTo(MinimalSettlementSolver.FALLBACK_TOO_MANY);
+	}
+
+	@Test
+	void exactLimitIsCappedToBoundTheTable() {
+		assertThat(new MinimalSettlementSolver(engine, MinimalSettlementSolver.MAX_EXACT_LIMIT, 1_000)).isNotNull();
+		assertThatThrownBy(() -> new MinimalSettlementSolver(engine, MinimalSettlementSolver.MAX_EXACT_LIMIT + 1, 1_000))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static void assertSettles(long[] ids, long[] balances, SettlementEngine.Transfers t) {
+		Map<Long, Long> open = new HashMap<>();
+		for (int i = 0; i < ids.length; i++) open.put(ids[i], balances[i]);
+		for (int k = 0; k < t.size; k++) {
+			open.merge(t.from[k], t.cents[k], Long::sum);
+			open.merge(t.to[k], -t.cents[k], Long::sum);
+		}
+		assertThat(open.values()).allMatch(v -> v == 0);
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.equall.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SettlementCacheTests {
+
+	private final SettlementCache cache = new SettlementCache(2, 60);
+
+	private final AtomicInteger computed = new AtomicInteger();
+
+	@Test
+	void hitIsMarkedAndReportsNoComputeTime() {
+		SettlementService.DetailedResult first = cache.get(1L, SettlementService.Mode.GREEDY, 3, () -> result(3));
+		SettlementService.DetailedResult again = cache.get(1L, SettlementService.Mode.GREEDY, 3, () -> result(3));
+
+		assertThat(computed).hasValue(1);
+		assertThat(first.cached).isFalse();
+		assertThat(first.computeMicros).isEqualTo(42);
+		assertThat(again.cached).isTrue();
+		assertThat(again.computeMicros).isZero();
+		assertThat(again.transactions).isSameAs(first.transactions);
+		assertThat(cache.stats().hits).isEqualTo(1);
+		assertThat(cache.stats().misses).isEqualTo(1);
+	}
+
+	@Test
+	void newerRevisionIsAMissAndReplacesTheEntry() {
+		cache.get(1L, SettlementService.Mode.GREEDY, 3, () -> result(3));
+
+		SettlementService.DetailedResult bumped = cache.get(1L, SettlementService.Mode.GREEDY, 4, () -> result(4));
+		assertThat(bumped.cached).isFalse();
+		assertThat(bumped.revision).isEqualTo(4);
+		assertThat(cache.get(1L, SettlementService.Mode.GREEDY, 4, () -> result(4)).cached).isTrue();
+		// other modes are cached apart
+		assertThat(cache.get(1L, SettlementService.Mode.MINIMAL, 4, () -> result(4)).cached).isFalse();
+		assertThat(computed).hasValue(3);
+	}
+
+	@Test
+	void lateResultOfAnOlderRevisionDoesNotReplaceANewerOne() {
+		cache.get(1L, SettlementService.Mode.GREEDY, 5, () -> result(5));
+		// a reader that saw revision 4 finishes after the revision 5 result was stored
+		cache.get(1L, SettlementService.Mode.GREEDY, 4, () -> result(4));
+
+		assertThat(cache.get(1L, SettlementService.Mode.GREEDY, 5, () -> result(5)).cached).isTrue();
+	}
+
+	@Test
+	void leastRecentlyUsedGroupIsEvicted() {
+		cache.get(1L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+		cache.get(2L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+		cache.get(1L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+		cache.get(3L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+
+		assertThat(cache.stats().evictions).isEqualTo(1);
+		assertThat(cache.get(1L, SettlementService.Mode.GREEDY, 1, () -> result(1)).cached).isTrue();
+		assertThat(cache.get(2L, SettlementService.Mode.GREEDY, 1, () -> result(1)).cached).isFalse();
+	}
+
+	@Test
+	void hitsMissesEvictionsAndSizeAreExposedAsMeters() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		cache.bindTo(registry);
+		cache.get(1L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+		cache.get(1L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+		cache.get(2L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+		cache.get(3L, SettlementService.Mode.GREEDY, 1, () -> result(1));
+
+		assertThat(registry.get("equall.settle.cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("equall.settle.cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(3);
+		assertThat(registry.get("equall.settle.cache.evictions").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("equall.settle.cache.size").gauge().value()).isEqualTo(2);
+	}
+
+	private SettlementService.DetailedResult result(long revision) {
+		computed.incrementAndGet();
+		return new SettlementService.DetailedResult(List.of(), List.of(), "greedy", 42, revision);
+	}
+}
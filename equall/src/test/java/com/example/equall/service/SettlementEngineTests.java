@@ -0,0 +1,74 @@
+package com.example.equall.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Property checks of {@link CentsSettlementEngine} against the original BigDecimal
+ * arithmetic in {@link DecimalSettlementEngine}, over a seeded random corpus.
+ */
+class SettlementEngineTests {
+
+	private static final int CASES = 5_000;
+
+	private final SettlementEngine cents = new CentsSettlementEngine();
+	private final SettlementEngine decimal = new DecimalSettlementEngine();
+
+	@Test
+	void matchingIsIdenticalToDecimalPath() {
+		Random rnd = new Random(42);
+		for (int c = 0; c < CASES; c++) {
+			int n = 1 + rnd.nextInt(30);
+			long[] ids = new long[n];
+			long[] balances = new long[n];
+			long sum = 0;
+			for (int i = 0; i < n; i++) {
+				ids[i] = 1 + rnd.nextInt(1_000_000);
+				// small value range on purpose so equal amounts (tie-breaking) are frequent
+				balances[i] = i == n - 1 ? -sum : (rnd.nextInt(21) - 10) * (rnd.nextBoolean() ? 100L : 1L);
+				sum += balances[i];
+			}
+
+			SettlementEngine.Transfers expected = decimal.match(ids, balances);
+			SettlementEngine.Transfers actual = cents.match(ids, balances);
+
+			assertThat(actual.size).isEqualTo(expected.size);
+			assertThat(Arrays.copyOf(actual.from, actual.size)).containsExactly(Arrays.copyOf(expected.from, expected.size));
+			assertThat(Arrays.copyOf(actual.to, actual.size)).containsExactly(Arrays.copyOf(expected.to, expected.size));
+			assertThat(Arrays.copyOf(actual.cents, actual.size)).containsExactly(Arrays.copyOf(expected.cents, expected.size));
+		}
+	}
+
+	@Test
+	void splitSumsExactlyAndStaysWithinOneCentOfDecimalPath() {
+		Random rnd = new Random(7);
+		for (int c = 0; c < CASES; c++) {
+			long amount = rnd.nextInt(10) == 0 ? -rnd.nextInt(100_000) : rnd.nextInt(10_000_000);
+			int n = 1 + rnd.nextInt(12);
+			long[] weights = new long[n];
+			for (int i = 0; i < n; i++) weights[i] = rnd.nextBoolean() ? 1 : 1 + rnd.nextInt(500);
+
+			long[] expected = decimal.split(amount, weights);
+			long[] actual = cents.split(amount, weights);
+
+			assertThat(Arrays.stream(actual).sum()).isEqualTo(amount);
+			for (int i = 0; i < n; i++) {
+				assertThat(Math.abs(actual[i] - expected[i])).isLessThanOrEqualTo(1);
+			}
+			if (Arrays.stream(expected).sum() == amount) {
+				assertThat(actual).containsExactly(expected);
+			}
+		}
+	}
+
+	@Test
+	void splitIsDeterministicOnTies() {
+		assertThat(cents.split(100, new long[]{1, 1, 1})).containsExactly(34, 33, 33);
+		assertThat(cents.split(-100, new long[]{1, 1, 1})).containsExactly(-34, -33, -33);
+		assertThat(cents.split(1000, new long[]{0, 0})).containsExactly(500, 500);
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.equall.service;
+
+import com.example.equall.controller.EventController;
+import com.example.equall.controller.GroupController;
+import com.example.equall.model.GroupEntity;
+import com.example.equall.model.Person;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// no background summary rebuilds: they would warm the settlement cache and add statements
+@SpringBootTest(properties = "equall.summary.rebuild-on-write=false")
+class SettlementMetricsTests {
+
+	@Autowired
+	private GroupController groupController;
+
+	@Autowired
+	private EventController eventController;
+
+	@Autowired
+	private SettlementService settlementService;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void settleRecordsPhasesAndGroupSize() {
+		GroupEntity group = groupController.createGroup(Map.of("name", "metrics")).getBody();
+		Person ann = (Person) groupController.addPerson(group.getId(), Map.of("name", "Ann")).getBody();
+		groupController.addPerson(group.getId(), Map.of("name", "Bob"));
+		for (int i = 0; i < 3; i++) {
+			eventController.createEvent(group.getId(), Map.of("amount", "12.00", "payerId", ann.getId()));
+		}
+
+		long matchesBefore = phaseCount("match");
+		double sqlBefore = registry.get("equall.sql.statements").counter().count();
+		settlementService.settleGroupDetailed(group.getId());
+
+		assertThat(phaseCount("load")).isPositive();
+		assertThat(phaseCount("aggregate")).isPositive();
+		assertThat(phaseCount("match")).isEqualTo(matchesBefore + 1);
+		assertThat(registry.get("equall.settle.last.people").gauge().value()).isEqualTo(2);
+		assertThat(registry.get("equall.settle.last.events").gauge().value()).isEqualTo(3);
+		assertThat(registry.get("equall.sql.statements").counter().count()).isGreaterThan(sqlBefore);
+	}
+
+	private long phaseCount(String phase) {
+		return registry.get("equall.settle.phase").tag("phase", phase).timer().count();
+	}
+}
@@ -0,0 +1,260 @@
+package com.example.equall.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// three H2 databases; everything goes through HTTP, so requests are routed like in production
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"equall.shards.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,"
+				+ "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false"
+})
+class ShardMigrationServiceTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ShardDirectory shards;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private Environment env;
+
+	@Autowired
+	private ObjectProvider<OpenEntityManagerInViewInterceptor> openInView;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void newGroupsSpreadOverShardsWithAllTheirRowsTogether() throws Exception {
+		Set<Integer> used = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			long groupId = createGroupWithEvents("spread-" + i);
+			int shard = shards.shardOf(groupId);
+			used.add(shard);
+			// created on the shard its id names
+			assertThat(groupId >>> ShardDirectory.ID_BITS).isEqualTo(shard);
+			assertThat(rowsPerShard(groupId)).containsExactly(expectedRows(shard));
+			assertSettles(groupId);
+		}
+		assertThat(used).containsExactlyInAnyOrder(0, 1, 2);
+	}
+
+	@Test
+	void movedGroupKeepsItsIdsAndIsServedFromTheNewShard() throws Exception {
+		long groupId = createGroupWithEvents("moving");
+		int from = shards.shardOf(groupId);
+		int to = (from + 1) % 3;
+		JsonNode before = call("POST", "/api/groups/" + groupId + "/settle?mode=greedy", null).get("transactions");
+		List<Long> eventIds = eventIds(groupId);
+
+		JsonNode moved = call("POST", "/api/shards/move?groupId=" + groupId + "&shard=" + to, null);
+		assertThat(moved.get("fromShard").asInt()).isEqualTo(from);
+		assertThat(moved.get("rows").asLong()).isPositive();
+		assertThat(shards.shardOf(groupId)).isEqualTo(to);
+		assertThat(rowsPerShard(groupId)).containsExactly(expectedRows(to));
+
+		// same ids, same settlement; streamed listing and writes go to the new shard
+		assertThat(eventIds(groupId)).isEqualTo(eventIds);
+		assertThat(call("POST", "/api/groups/" + groupId + "/settle?mode=greedy", null).get("transactions"))
+				.isEqualTo(before);
+		long payer = call("GET", "/api/groups/" + groupId, null).get("people").get(0).get("id").asLong();
+		call("POST", "/api/groups/" + groupId + "/events", Map.of("title", "after move", "amount", "9", "payerId", payer));
+		assertThat(count(to, "select count(*) from event where group_id = ?", groupId)).isEqualTo(3);
+		assertThat(count(from, "select count(*) from event where group_id = ?", groupId)).isZero();
+		assertThat(call("GET", "/api/groups/" + groupId + "/summary", null).get("eventCount").asLong()).isEqualTo(3);
+
+		// and back home, which drops it from the directory
+		call("POST", "/api/shards/move?groupId=" + groupId + "&shard=" + from, null);
+		assertThat(shards.shardOf(groupId)).isEqualTo(from);
+		assertThat(eventIds(groupId)).hasSize(3).containsAll(eventIds);
+	}
+
+	@Test
+	void moveWaitsForARunningWriteAndTakesItAlong() throws Exception {
+		long groupId = createGroupWithEvents("racing");
+		int from = shards.shardOf(groupId);
+		int to = (from + 1) % 3;
+
+		CompletableFuture<JsonNode> move;
+		// a write in progress on the source: it holds the group row, as every writer takes it first
+		try (Connection writer = shards.dataSource(from).getConnection()) {
+			writer.setAutoCommit(false);
+			try (PreparedStatement lock = writer.prepareStatement("select id from groups where id = ? for update")) {
+				lock.setLong(1, groupId);
+				lock.executeQuery().close();
+			}
+			move = CompletableFuture.supplyAsync(() -> {
+				try {
+					return call("POST", "/api/shards/move?groupId=" + groupId + "&shard=" + to, null);
+				} catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+			});
+			Thread.sleep(300);
+			assertThat(move).isNotDone();
+			try (PreparedStatement write = writer.prepareStatement("update groups set name = 'raced' where id = ?")) {
+				write.setLong(1, groupId);
+				write.executeUpdate();
+			}
+			writer.commit();
+		}
+
+		assertThat(move.get(10, TimeUnit.SECONDS).get("toShard").asInt()).isEqualTo(to);
+		assertThat(rowsPerShard(groupId)).containsExactly(expectedRows(to));
+		assertThat(call("GET", "/api/groups/" + groupId, null).get("name").asText()).isEqualTo("raced");
+	}
+
+	@Test
+	void rebalanceEvensOutGroupCounts() throws Exception {
+		List<Long> groups = new ArrayList<>();
+		for (int i = 0; i < 6; i++) groups.add(createGroupWithEvents("skewed-" + i));
+		// pile everything onto shard 2
+		for (Long groupId : groups) call("POST", "/api/shards/move?groupId=" + groupId + "&shard=2", null);
+
+		JsonNode result = call("POST", "/api/shards/rebalance", null);
+		assertThat(result.get("moves").size()).isPositive();
+		long min = Long.MAX_VALUE;
+		long max = 0;
+		for (JsonNode s : result.get("after")) {
+			min = Math.min(min, s.get("groups").asLong());
+			max = Math.max(max, s.get("groups").asLong());
+		}
+		assertThat(max - min).isLessThanOrEqualTo(1);
+		for (Long groupId : groups) {
+			assertThat(rowsPerShard(groupId)).containsExactly(expectedRows(shards.shardOf(groupId)));
+			assertSettles(groupId);
+		}
+	}
+
+	@Test
+	void batchOfChangedGroupsSettlesGroupsOfEveryShard() throws Exception {
+		String since = Instant.now().minusSeconds(1).toString();
+		List<Long> groups = new ArrayList<>();
+		Set<Integer> used = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			long groupId = createGroupWithEvents("changed-" + i);
+			groups.add(groupId);
+			used.add(shards.shardOf(groupId));
+		}
+		assertThat(used).hasSize(3);
+
+		JsonNode summary = call("POST", "/api/settlements/batch", Map.of("changedSince", since));
+		List<Long> settled = new ArrayList<>();
+		for (JsonNode outcome : summary.get("results")) {
+			assertThat(outcome.get("ok").asBoolean()).as(outcome.toString()).isTrue();
+			settled.add(outcome.get("groupId").asLong());
+		}
+		assertThat(settled).containsAll(groups).doesNotHaveDuplicates();
+	}
+
+	@Test
+	void openInViewIsOffSoEveryTransactionPicksItsShard() throws Exception {
+		assertThat(env.getProperty("spring.jpa.open-in-view")).isEqualTo("false");
+		assertThat(openInView.getIfAvailable()).isNull();
+
+		// people (and their group) still serialize without a request-wide session
+		long groupId = createGroupWithEvents("no-osiv");
+		JsonNode group = call("GET", "/api/groups/" + groupId, null);
+		assertThat(group.get("people")).hasSize(3);
+		assertThat(group.get("people").get(0).get("group").get("id").asLong()).isEqualTo(groupId);
+	}
+
+	// Ann pays 30 for Ann + Bob, Bob pays 12 for Bob + Cid: Bob owes Ann 9, Cid owes Ann 6
+	private long createGroupWithEvents(String name) throws Exception {
+		long groupId = call("POST", "/api/groups", Map.of("name", name)).get("id").asLong();
+		List<Long> people = new ArrayList<>();
+		for (String person : List.of("Ann", "Bob", "Cid")) {
+			people.add(call("POST", "/api/groups/" + groupId + "/people", Map.of("name", person)).get("id").asLong());
+		}
+		addEvent(groupId, people.get(0), "30", List.of(people.get(0), people.get(1)));
+		addEvent(groupId, people.get(1), "12", List.of(people.get(1), people.get(2)));
+		return groupId;
+	}
+
+	private void addEvent(long groupId, long payer, String amount, List<Long> participants) throws Exception {
+		long eventId = call("POST", "/api/groups/" + groupId + "/events",
+				Map.of("title", "e", "amount", amount, "payerId", payer)).get("id").asLong();
+		call("POST", "/api/groups/" + groupId + "/events/" + eventId + "/participants",
+				Map.of("participants", participants));
+	}
+
+	private void assertSettles(long groupId) throws Exception {
+		JsonNode transfers = call("POST", "/api/groups/" + groupId + "/settle", null);
+		assertThat(transfers).hasSize(2);
+		BigDecimal total = BigDecimal.ZERO;
+		for (JsonNode t : transfers) total = total.add(t.get("amount").decimalValue());
+		assertThat(total).isEqualByComparingTo("15");
+	}
+
+	private List<Long> eventIds(long groupId) throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (JsonNode e : call("GET", "/api/groups/" + groupId + "/events", null).get("items")) ids.add(e.get("id").asLong());
+		return ids;
+	}
+
+	// group, people, events, participants and ledger rows of the group on each shard
+	private List<List<Long>> rowsPerShard(long groupId) {
+		List<List<Long>> rows = new ArrayList<>();
+		for (int shard = 0; shard < shards.shardCount(); shard++) {
+			rows.add(List.of(
+					count(shard, "select count(*) from groups where id = ?", groupId),
+					count(shard, "select count(*) from person where group_id = ?", groupId),
+					count(shard, "select count(*) from event where group_id = ?", groupId),
+					count(shard, "select count(*) from event_participant where event_id in"
+							+ " (select id from event where group_id = ?)", groupId),
+					count(shard, "select count(*) from person_balance where group_id = ?", groupId)));
+		}
+		return rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Long>[] expectedRows(int shard) {
+		List<Long>[] rows = new List[shards.shardCount()];
+		for (int i = 0; i < rows.length; i++) rows[i] = i == shard ? List.of(1L, 3L, 2L, 4L, 3L) : List.of(0L, 0L, 0L, 0L, 0L);
+		return rows;
+	}
+
+	private long count(int shard, String sql, long groupId) {
+		return new JdbcTemplate(shards.dataSource(shard)).queryForObject(sql, Long.class, groupId);
+	}
+
+	private JsonNode call(String method, String path, Object body) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Content-Type", "application/json");
+		request.method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+				: HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+		HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+		assertThat(response.statusCode()).as(method + " " + path + ": " + response.body()).isBetween(200, 299);
+		return mapper.readTree(response.body());
+	}
+}